@@ -1,27 +1,242 @@
 package org.example.bank;
 
+import org.example.bank.storage.Storage;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Bounded JDBC connection pool.
+ * Every DAO call borrows its own session, so N engine threads really get N concurrent connections.
+ *
+ * Tuning (JVM system properties):
+ *   bank.db.pool.max     max open connections      (default 10)
+ *   bank.db.pool.waitMs  max wait for a free slot   (default 5000)
+ *   bank.db.pool.idleMs  idle time before eviction (default 60000)
+ *   bank.db.stmtCache    cached prepared statements per connection (default 64, see PooledConnection)
+ *
+ * MySQL by default, embedded H2 with -Dbank.storage=h2 (see Storage).
+ * The first connection also brings the schema up to date (SchemaMigrations).
+ */
 public class DBConnection {
 
-    private static final String URL =
-            "jdbc:mysql://localhost:3306/bank_simulator";
-    private static final String USER = "root";
+    private static final String MYSQL_URL =
+            // server-side prepared statements: a cached statement is parsed once per connection.
+            // useCursorFetch: setFetchSize(n) reads n rows per round trip instead of the whole result
+            "jdbc:mysql://localhost:3306/bank_simulator?useServerPrepStmts=true&useCursorFetch=true";
+
+    // -Dbank.storage=h2: same SQL in MySQL mode; DB_CLOSE_DELAY keeps the in-memory database between connections
+    private static final String H2_URL =
+            System.getProperty("bank.h2.url", "jdbc:h2:mem:bank_simulator;MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+    private static final boolean H2 = Storage.backend() == Storage.Backend.H2;
+    private static final String URL = H2 ? H2_URL : MYSQL_URL;
+    private static final String USER = H2 ? "sa" : "root";
     private static final String PASSWORD = ""; // put your password if needed
 
-    private static Connection connection;
+    private static final int MAX_POOL_SIZE = Math.max(1, Integer.getInteger("bank.db.pool.max", 10));
+    private static final long MAX_WAIT_MS = Long.getLong("bank.db.pool.waitMs", 5000L);
+    private static final long IDLE_TIMEOUT_MS = Long.getLong("bank.db.pool.idleMs", 60_000L);
+
+    // connections idle for less than this are trusted without a ping
+    private static final long VALIDATE_AFTER_IDLE_MS = 1000L;
+    private static final int VALIDATION_TIMEOUT_S = 2;
+
+    // most recently returned first (LIFO) => cold connections age out and get evicted
+    private static final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private static final Semaphore slots = new Semaphore(MAX_POOL_SIZE, true);
+
+    // ---- metrics
+    private static final AtomicInteger open = new AtomicInteger();
+    private static final LongAdder borrows = new LongAdder();
+    private static final LongAdder waitNanos = new LongAdder();
+    private static final AtomicLong maxWaitNanos = new AtomicLong();
+    private static final LongAdder timeouts = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static final LongAdder statementHits = new LongAdder();
+    private static final LongAdder statementMisses = new LongAdder();
+
+    private static volatile boolean migrated;
+
+    private static final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "db-pool-evictor");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        long period = Math.max(1000L, IDLE_TIMEOUT_MS / 2);
+        evictor.scheduleWithFixedDelay(DBConnection::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
 
     private DBConnection() {
         // prevent instantiation
     }
 
-    public static Connection getConnection() throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = DriverManager.getConnection(URL, USER, PASSWORD);
+    /**
+     * Borrow a connection. Use it in try-with-resources so it always goes back to the pool.
+     */
+    public static PooledConnection getConnection() throws SQLException {
+        if (!migrated) migrate();
+
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = slots.tryAcquire(MAX_WAIT_MS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        if (!acquired) {
+            timeouts.increment();
+            throw new SQLException("Connection pool exhausted (max=" + MAX_POOL_SIZE
+                    + ", waited " + MAX_WAIT_MS + " ms)");
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pc = takeValidIdle();
+            if (pc == null) {
+                pc = new PooledConnection(DriverManager.getConnection(URL, USER, PASSWORD));
+                open.incrementAndGet();
+            }
+            pc.markBorrowed();
+            borrows.increment();
+            return pc;
+        } catch (SQLException | RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    // own physical connection: the pool is not usable before the schema is
+    private static synchronized void migrate() throws SQLException {
+        if (migrated) return;
+        try (Connection conn = DriverManager.getConnection(URL, USER, PASSWORD)) {
+            try {
+                if (H2) SchemaMigrations.createBaseSchema(conn);
+                SchemaMigrations.migrate(conn);
+            } catch (SQLException e) {
+                // the code needs every version (opening_balance, wal_checkpoint...): no connection
+                // on an old schema. Steps are repeatable, the next getConnection() tries again
+                System.err.println("[Schema] migration failed: " + e.getMessage());
+                throw new SQLException("Database schema is not up to date: " + e.getMessage(), e);
+            }
+        }
+        migrated = true;
+    }
+
+    static void release(PooledConnection pc) {
+        try {
+            if (pc.unwrap().isClosed()) {
+                discard(pc);
+                return;
+            }
+            // never hand a half-finished transaction to the next borrower
+            if (!pc.unwrap().getAutoCommit()) {
+                pc.unwrap().rollback();
+                pc.unwrap().setAutoCommit(true);
+            }
+            pc.markReturned();
+            idle.offerFirst(pc);
+        } catch (SQLException e) {
+            discard(pc);
+        } finally {
+            slots.release();
         }
-        return connection;
     }
-}
 
+    private static PooledConnection takeValidIdle() {
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            long idleFor = System.currentTimeMillis() - pc.getLastUsedMillis();
+            if (idleFor < VALIDATE_AFTER_IDLE_MS || isValid(pc)) return pc;
+            discard(pc);
+        }
+        return null;
+    }
+
+    private static boolean isValid(PooledConnection pc) {
+        try {
+            return pc.unwrap().isValid(VALIDATION_TIMEOUT_S);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void discard(PooledConnection pc) {
+        pc.closePhysical();
+        open.decrementAndGet();
+    }
+
+    private static void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> it = idle.descendingIterator(); // oldest first
+        while (it.hasNext()) {
+            PooledConnection pc = it.next();
+            if (now - pc.getLastUsedMillis() < IDLE_TIMEOUT_MS) break;
+            if (idle.remove(pc)) {
+                discard(pc);
+                evictions.increment();
+            }
+        }
+    }
+
+    static void countStatement(boolean hit) {
+        if (hit) statementHits.increment();
+        else statementMisses.increment();
+    }
+
+    private static void recordWait(long nanos) {
+        waitNanos.add(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /** Close idle connections (called on application exit). */
+    public static void shutdown() {
+        evictor.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) discard(pc);
+    }
+
+    // ---------- METRICS ----------
+    public static PoolStats stats() {
+        long n = borrows.sum();
+        return new PoolStats(
+                MAX_POOL_SIZE,
+                open.get(),
+                MAX_POOL_SIZE - slots.availablePermits(),
+                idle.size(),
+                n,
+                timeouts.sum(),
+                evictions.sum(),
+                n == 0 ? 0 : waitNanos.sum() / n / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0,
+                statementHits.sum(),
+                statementMisses.sum()
+        );
+    }
+
+    public record PoolStats(int maxSize,
+                            int open,
+                            int inUse,
+                            int idle,
+                            long borrows,
+                            long timeouts,
+                            long evictions,
+                            double avgWaitMs,
+                            double maxWaitMs,
+                            long statementHits,
+                            long statementMisses) {
+    }
+}
@@ -4,11 +4,16 @@ import org.example.bank.auth.LoginService;
 import org.example.bank.auth.User;
 import org.example.bank.concurrency.BankEngine;
 import org.example.bank.concurrency.Worker;
-import org.example.bank.dao.AccountDAO;
-import org.example.bank.dao.TransactionDAO;
-import org.example.bank.dao.UserDAO;
+import org.example.bank.dao.AccountRepository;
+import org.example.bank.dao.LedgerReconciler;
+import org.example.bank.dao.LedgerWriter;
+import org.example.bank.stats.LiveStats;
+import org.example.bank.storage.Storage;
+import org.example.bank.storage.TransactionStore;
+import org.example.bank.storage.UserStore;
 import org.example.bank.ui.admin.AdminDashboardPanel;
 import org.example.bank.ui.client.ClientDashboardPanel;
+import org.example.bank.wal.WriteAheadLog;
 
 import javax.swing.*;
 import java.awt.*;
@@ -20,15 +25,20 @@ public class Main extends JFrame {
     private User user;
 
     private final LoginService loginService = new LoginService();
-    private final AccountDAO accountDAO = new AccountDAO();
-    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final AccountRepository accountRepository = AccountRepository.shared();
+    private final TransactionStore transactionDAO = Storage.shared().transactions();
 
     private final BankEngine engine = new BankEngine();
+    private final LedgerReconciler reconciler = LedgerReconciler.fromProperties();
     private Worker[] workers;
 
     public Main() {
         setSystemLookAndFeel();
 
+        // stuck PENDING ledger rows: one sweep now, then periodically (dashboard status counts follow)
+        reconciler.addListener(LiveStats.shared());
+        reconciler.start();
+
         setTitle("Transaction Simulator");
         setSize(1120, 720);
         setMinimumSize(new Dimension(1040, 660));
@@ -46,7 +56,9 @@ public class Main extends JFrame {
             return;
         }
 
-        // 2) Start workers
+        // 2) Start workers (dashboard figures seeded first, then kept up to date by the engine)
+        LiveStats.shared().seed();
+        engine.addListener(LiveStats.shared());
         startWorkers();
 
         // 3) Route UI
@@ -62,9 +74,9 @@ public class Main extends JFrame {
         String role = (user.getRole() == null) ? "" : user.getRole().toString().toUpperCase();
 
         if (role.contains("ADMIN")) {
-            setContentPane(new AdminDashboardPanel(this, user, accountDAO, transactionDAO, engine, onExit, onSignOut));
+            setContentPane(new AdminDashboardPanel(this, user, accountRepository, transactionDAO, engine, onExit, onSignOut));
         } else {
-            setContentPane(new ClientDashboardPanel(this, user, accountDAO, transactionDAO, engine, onExit , onSignOut));
+            setContentPane(new ClientDashboardPanel(this, user, accountRepository, transactionDAO, engine, onExit , onSignOut));
         }
 
         revalidate();
@@ -120,6 +132,11 @@ public class Main extends JFrame {
         if (confirm != JOptionPane.YES_OPTION) return;
 
         shutdownWorkers();
+        reconciler.close();
+        engine.shutdown();
+        LedgerWriter.shared().close(); // flush queued ledger rows
+        WriteAheadLog.closeActive();   // last checkpoint
+        DBConnection.shutdown();
         dispose();
         System.exit(0);
     }
@@ -371,7 +388,7 @@ public class Main extends JFrame {
             return;
         }
 
-        UserDAO userDAO = new UserDAO();
+        UserStore userDAO = Storage.shared().users();
         if (userDAO.usernameExists(username)) {
             JOptionPane.showMessageDialog(parent, "Username already exists.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
@@ -385,7 +402,10 @@ public class Main extends JFrame {
         }
 
         // ✅ create default account
-        boolean okAcc = accountDAO.createDefaultAccountForUser(newUserId);
+        boolean okAcc = accountRepository.createDefaultAccountForUser(newUserId) != null;
+
+        LiveStats.shared().userCreated(newUserId, username);
+        if (okAcc) LiveStats.shared().accountCreated(newUserId);
 
         if (okAcc) {
             JOptionPane.showMessageDialog(parent, "Client account + default bank account created ✅", "Success", JOptionPane.INFORMATION_MESSAGE);
@@ -395,6 +415,8 @@ public class Main extends JFrame {
     }
 
     public static void main(String[] args) {
+        // -Dbank.wal.dir=...: replay the log tail before any account is loaded
+        WriteAheadLog.openFromProperties();
         SwingUtilities.invokeLater(Main::new);
     }
 }
\ No newline at end of file
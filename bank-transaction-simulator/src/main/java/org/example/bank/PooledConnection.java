@@ -0,0 +1,130 @@
+package org.example.bank;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A physical JDBC connection borrowed from {@link DBConnection}.
+ * Closing it does NOT close the socket: it hands the connection back to the pool.
+ *
+ * Statements obtained with cachedStatement() are prepared once per physical connection and
+ * kept (LRU, bank.db.stmtCache per connection, default 64) until the connection is discarded.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private static final int STATEMENT_CACHE_SIZE = Math.max(1, Integer.getInteger("bank.db.stmtCache", 64));
+
+    private final Connection raw;
+    private volatile long lastUsedMillis;
+    private final AtomicBoolean borrowed = new AtomicBoolean(); // cleared by the one close() that releases
+
+    // one borrower at a time: no locking needed. Access order => least recently used evicted first
+    private final Map<String, PreparedStatement> statements = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+            if (size() <= STATEMENT_CACHE_SIZE) return false;
+            closeQuietly(eldest.getValue());
+            return true;
+        }
+    };
+
+    PooledConnection(Connection raw) {
+        this.raw = raw;
+        this.lastUsedMillis = System.currentTimeMillis();
+    }
+
+    // ---------- STATEMENT CACHE ----------
+
+    /**
+     * Prepared statement reused by every borrower of this connection, parameters, batch and fetch size reset.
+     * Do NOT close it (the cache owns it); close its ResultSet.
+     */
+    public PreparedStatement cachedStatement(String sql) throws SQLException {
+        return cachedStatement(sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    public PreparedStatement cachedStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        String key = (autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS) ? "keys:" + sql : sql;
+
+        PreparedStatement ps = statements.get(key);
+        if (ps != null && !ps.isClosed()) {
+            ps.clearParameters();
+            ps.clearBatch();
+            ps.setFetchSize(0); // driver default again, a stream may have changed it
+            DBConnection.countStatement(true);
+            return ps;
+        }
+
+        ps = raw.prepareStatement(sql, autoGeneratedKeys);
+        statements.put(key, ps);
+        DBConnection.countStatement(false);
+        return ps;
+    }
+
+    private static void closeQuietly(Statement st) {
+        try {
+            st.close();
+        } catch (SQLException ignored) {}
+    }
+
+    // ---------- DELEGATES USED BY THE DAOs ----------
+    // one-off statements: close them (try-with-resources)
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        return raw.prepareStatement(sql);
+    }
+
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        return raw.prepareStatement(sql, autoGeneratedKeys);
+    }
+
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        raw.setAutoCommit(autoCommit);
+    }
+
+    public void commit() throws SQLException {
+        raw.commit();
+    }
+
+    public void rollback() throws SQLException {
+        raw.rollback();
+    }
+
+    /** Underlying driver connection (do not close it yourself). */
+    public Connection unwrap() {
+        return raw;
+    }
+
+    // ---------- POOL BOOKKEEPING ----------
+    long getLastUsedMillis() {
+        return lastUsedMillis;
+    }
+
+    void markBorrowed() {
+        borrowed.set(true);
+    }
+
+    void markReturned() {
+        lastUsedMillis = System.currentTimeMillis();
+    }
+
+    void closePhysical() {
+        statements.values().forEach(PooledConnection::closeQuietly);
+        statements.clear();
+        try {
+            raw.close();
+        } catch (SQLException ignored) {}
+    }
+
+    // ✅ try-with-resources => back to the pool
+    @Override
+    public void close() {
+        // a second close (or a racing one) must not free the slot / count the discard twice
+        if (!borrowed.compareAndSet(true, false)) return;
+        DBConnection.release(this);
+    }
+}
@@ -0,0 +1,252 @@
+package org.example.bank;
+
+import org.example.bank.storage.SeedData;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Versioned schema changes, applied once per database by DBConnection (first connection).
+ *
+ * The applied versions are kept in {@code schema_version}. Every step checks the existing
+ * schema first, so a database imported from an up-to-date bank_simulator.sql is only stamped.
+ * A failed step stops the run and DBConnection hands out no connection until a later attempt
+ * succeeds: the application relies on every version.
+ *
+ * An embedded H2 database starts empty: createBaseSchema() first creates the tables of
+ * bank_simulator.sql and the SeedData users.
+ */
+final class SchemaMigrations {
+
+    private record Index(String table, String name, String columns) {
+    }
+
+    // backfill (may be null) runs with every attempt of the version: it must be repeatable
+    private record Column(String table, String name, String definition, String backfill) {
+    }
+
+    // tables: CREATE TABLE IF NOT EXISTS statements
+    private record Migration(int version, String description, List<String> tables, List<Column> add,
+                             List<Index> create, List<Index> drop) {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "transactions: history and PENDING sweep indexes",
+                    List.of(),
+                    List.of(),
+                    List.of(
+                            // account history: one range per side, already in created_at order (id is implicit in InnoDB)
+                            new Index("transactions", "to_created", "to_account_ref, created_at"),
+                            new Index("transactions", "from_created", "from_account_ref, created_at"),
+                            // admin history (keyset on created_at, id)
+                            new Index("transactions", "created_at_id", "created_at, id"),
+                            // reconciler: PENDING rows older than the cutoff (replaced in version 5)
+                            new Index("transactions", "status_created", "status, created_at")
+                    ),
+                    List.of()),
+            new Migration(2, "transactions: drop indexes covered by version 1",
+                    List.of(),
+                    List.of(),
+                    List.of(),
+                    List.of(
+                            // prefix of from_created (which also serves the foreign key)
+                            new Index("transactions", "from_account_ref", null)
+                    )),
+            new Migration(3, "accounts: opening balance (reconciler baseline)",
+                    List.of(),
+                    List.of(
+                            // NULL = unknown (imported with a balance and ledger rows). An account without
+                            // any ledger row still holds its opening balance (seeded / imported)
+                            new Column("accounts", "opening_balance", "DOUBLE NULL", """
+                                UPDATE accounts a SET opening_balance = balance
+                                WHERE NOT EXISTS (SELECT 1 FROM transactions t WHERE t.to_account_ref = a.account_ref)
+                                  AND NOT EXISTS (SELECT 1 FROM transactions t WHERE t.from_account_ref = a.account_ref)
+                                """)
+                    ),
+                    List.of(),
+                    List.of()),
+            new Migration(4, "wal_checkpoint: last WAL position applied (WriteAheadLog)",
+                    List.of("""
+                        CREATE TABLE IF NOT EXISTS wal_checkpoint (
+                            id INT PRIMARY KEY,
+                            wal_position BIGINT NOT NULL
+                        )
+                        """),
+                    List.of(),
+                    List.of(),
+                    List.of()),
+            new Migration(5, "transactions: PENDING sweep index in id order",
+                    List.of(),
+                    List.of(),
+                    List.of(
+                            // reconciler keyset (findPendingBefore pages on id)
+                            new Index("transactions", "status_id", "status, id")
+                    ),
+                    List.of(
+                            // returned the PENDING rows in created_at order: every page sorted them again
+                            new Index("transactions", "status_created", null)
+                    ))
+    );
+
+    private static final String VERSION_TABLE = """
+        CREATE TABLE IF NOT EXISTS schema_version (
+            version INT PRIMARY KEY,
+            description VARCHAR(200) NOT NULL,
+            applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+        )
+        """;
+
+    // bank_simulator.sql without its indexes (versions 1 and 2 add them), in H2's MySQL mode
+    private static final List<String> BASE_TABLES = List.of("""
+        CREATE TABLE IF NOT EXISTS users (
+            id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+            username VARCHAR(50) NOT NULL UNIQUE,
+            password VARCHAR(255) NOT NULL,
+            role ENUM('CLIENT','ADMIN') NOT NULL
+        )
+        """, """
+        CREATE TABLE IF NOT EXISTS accounts (
+            id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+            user_id INT NOT NULL,
+            balance DOUBLE NOT NULL,
+            account_ref VARCHAR(50) NOT NULL UNIQUE,
+            FOREIGN KEY (user_id) REFERENCES users (id)
+        )
+        """, """
+        CREATE TABLE IF NOT EXISTS transactions (
+            id INT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+            type ENUM('DEPOSIT','WITHDRAW','TRANSFER') NOT NULL,
+            from_account_ref VARCHAR(50) DEFAULT NULL,
+            to_account_ref VARCHAR(50) DEFAULT NULL,
+            amount DOUBLE NOT NULL,
+            created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+            status ENUM('PENDING','DONE','FAILED') DEFAULT NULL,
+            FOREIGN KEY (from_account_ref) REFERENCES accounts (account_ref)
+        )
+        """);
+
+    private SchemaMigrations() {
+    }
+
+    /** Tables of bank_simulator.sql, plus the demo users if there are none yet. */
+    static void createBaseSchema(Connection conn) throws SQLException {
+        for (String ddl : BASE_TABLES) execute(conn, ddl);
+
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM users")) {
+            if (rs.next() && rs.getLong(1) > 0) return;
+        }
+
+        try (PreparedStatement user = conn.prepareStatement(
+                     "INSERT INTO users (username, password, role) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement account = conn.prepareStatement(
+                     "INSERT INTO accounts (user_id, account_ref, balance) VALUES (?, ?, ?)", Statement.RETURN_GENERATED_KEYS);
+             PreparedStatement ref = conn.prepareStatement("UPDATE accounts SET account_ref = ? WHERE id = ?")) {
+
+            for (SeedData.SeedUser u : SeedData.USERS) {
+                user.setString(1, u.username());
+                user.setString(2, u.password());
+                user.setString(3, u.role().name());
+                user.executeUpdate();
+                int userId = generatedId(user);
+
+                for (double balance : u.balances()) {
+                    // same "ACC-<id>" refs as AccountDAO
+                    account.setInt(1, userId);
+                    account.setString(2, "TMP");
+                    account.setDouble(3, balance);
+                    account.executeUpdate();
+                    int accountId = generatedId(account);
+
+                    ref.setString(1, "ACC-" + accountId);
+                    ref.setInt(2, accountId);
+                    ref.executeUpdate();
+                }
+            }
+        }
+        System.out.println("[Schema] base tables created, " + SeedData.USERS.size() + " demo users");
+    }
+
+    private static int generatedId(PreparedStatement insert) throws SQLException {
+        try (ResultSet keys = insert.getGeneratedKeys()) {
+            if (!keys.next()) throw new SQLException("no generated id");
+            return keys.getInt(1);
+        }
+    }
+
+    static void migrate(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(VERSION_TABLE);
+        }
+
+        int current = 0;
+        try (Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            if (rs.next()) current = rs.getInt(1);
+        }
+
+        for (Migration m : MIGRATIONS) {
+            if (m.version() <= current) continue;
+
+            for (String ddl : m.tables()) execute(conn, ddl);
+            for (Column c : m.add()) {
+                if (!columnExists(conn, c)) execute(conn, "ALTER TABLE " + c.table() + " ADD COLUMN " + c.name() + " " + c.definition());
+                if (c.backfill() != null) execute(conn, c.backfill());
+            }
+            for (Index i : m.create()) {
+                if (!indexExists(conn, i)) execute(conn, "CREATE INDEX " + i.name() + " ON " + i.table() + " (" + i.columns() + ")");
+            }
+            for (Index i : m.drop()) {
+                if (indexExists(conn, i)) execute(conn, "DROP INDEX " + i.name() + " ON " + i.table());
+            }
+
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                ps.setInt(1, m.version());
+                ps.setString(2, m.description());
+                ps.executeUpdate();
+            }
+            System.out.println("[Schema] version " + m.version() + ": " + m.description());
+        }
+    }
+
+    private static void execute(Connection conn, String ddl) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate(ddl); // DDL commits on its own in MySQL: every step is checked again on a re-run
+        }
+    }
+
+    private static boolean columnExists(Connection conn, Column column) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        for (String table : new String[]{ column.table(), column.table().toUpperCase(Locale.ROOT) }) {
+            for (String name : new String[]{ column.name(), column.name().toUpperCase(Locale.ROOT) }) {
+                try (ResultSet rs = meta.getColumns(conn.getCatalog(), null, table, name)) {
+                    if (rs.next()) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean indexExists(Connection conn, Index index) throws SQLException {
+        DatabaseMetaData meta = conn.getMetaData();
+        Set<String> names = new HashSet<>();
+        // table names are stored upper case by some databases
+        for (String table : new String[]{ index.table(), index.table().toUpperCase(Locale.ROOT) }) {
+            try (ResultSet rs = meta.getIndexInfo(conn.getCatalog(), null, table, false, true)) {
+                while (rs.next()) {
+                    String name = rs.getString("INDEX_NAME");
+                    if (name != null) names.add(name.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return names.contains(index.name().toLowerCase(Locale.ROOT));
+    }
+}
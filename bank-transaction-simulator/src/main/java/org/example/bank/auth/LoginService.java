@@ -1,10 +1,11 @@
 package org.example.bank.auth;
 
-import org.example.bank.dao.UserDAO;
+import org.example.bank.storage.Storage;
+import org.example.bank.storage.UserStore;
 
 public class LoginService {
 
-    private final UserDAO userDAO = new UserDAO();
+    private final UserStore userDAO = Storage.shared().users();
 
     public User login(String username, String password) {
         return userDAO.findByCredentials(username, password);
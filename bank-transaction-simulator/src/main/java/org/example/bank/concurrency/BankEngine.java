@@ -1,106 +1,385 @@
 package org.example.bank.concurrency;
 
+import org.example.bank.transactions.CoalescableTransaction;
 import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
+import org.example.bank.wal.WriteAheadLog;
 
-import java.lang.reflect.Method;
-import java.util.*;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.*;
-import java.util.concurrent.locks.ReentrantLock;
 
 public class BankEngine {
 
-    private final ExecutorService pool;
-    private final ConcurrentHashMap<String, ReentrantLock> accountLocks = new ConcurrentHashMap<>();
+    public enum Mode {
+        /** Shared thread pool + striped account locks (default). */
+        LOCKING,
+        /** One single-threaded shard per slice of account ids, no locks. */
+        SHARDED,
+        /**
+         * One virtual thread per transaction + striped locks (needs a Java 21+ runtime, see VirtualThreads).
+         * Thousands of transactions can wait on JDBC at once; DB work is bounded by connection permits.
+         */
+        VIRTUAL
+    }
+
+    private final Mode mode;
+    private final ExecutorService pool;       // LOCKING / VIRTUAL
+    private final ShardedExecutor shards;     // SHARDED
+    private final Semaphore dbPermits;        // VIRTUAL
+    private final LockTable locks;
+    private final SubmissionGate gate;
+    private final CoalescingStage coalescer;  // null unless bank.engine.coalesce=true
+    private final List<TransactionListener> listeners = new CopyOnWriteArrayList<>();
 
     public BankEngine() {
         this(3);
     }
 
     public BankEngine(int threads) {
-        this.pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        this(threads, Mode.LOCKING);
     }
 
-    public void submit(Transaction tx) {
-        if (tx == null) return;
+    /**
+     * LOCKING: fixed pool of {@code threads} + striped locks.
+     * SHARDED: {@code threads} single-writer shards, account id -> shard by modulo.
+     * VIRTUAL: unbounded virtual threads, at most {@code threads} executing DB work at once
+     *          (use the connection pool size, see DBConnection.stats().maxSize()).
+     */
+    public BankEngine(int threads, Mode mode) {
+        this(threads, mode,
+                Integer.getInteger("bank.engine.queueCapacity", 10_000),
+                OverflowPolicy.valueOf(System.getProperty("bank.engine.overflow", "BLOCK")));
+    }
 
-        pool.submit(() -> {
-            try {
-                executeSafely(tx);
-            } catch (Exception e) {
-                System.err.println("[BankEngine] Transaction failed: " + e.getMessage());
-                e.printStackTrace();
-            }
-        });
+    /**
+     * @param queueCapacity max transactions submitted but not started yet
+     * @param overflow      what submit() does when that limit is reached
+     *                      (TIMEOUT waits bank.engine.offerTimeoutMs, default 1000)
+     */
+    public BankEngine(int threads, Mode mode, int queueCapacity, OverflowPolicy overflow) {
+        this(mode, threads,
+                Integer.getInteger("bank.engine.lockStripes", 4096),
+                Boolean.getBoolean("bank.engine.fairLocks"),
+                new SubmissionGate(queueCapacity, overflow, Long.getLong("bank.engine.offerTimeoutMs", 1000L)));
+    }
+
+    /**
+     * @param fairLocks FIFO hand-off between waiters (no starvation, lower throughput).
+     *                  Default is non-fair (bank.engine.fairLocks=false).
+     */
+    public BankEngine(int threads, int lockStripes, boolean fairLocks) {
+        this(Mode.LOCKING, threads, lockStripes, fairLocks,
+                new SubmissionGate(Integer.getInteger("bank.engine.queueCapacity", 10_000), OverflowPolicy.BLOCK, 0));
     }
 
-    private void executeSafely(Transaction tx) {
-        List<String> keys = getLockKeysIfExists(tx);
+    private BankEngine(Mode mode, int threads, int lockStripes, boolean fairLocks, SubmissionGate gate) {
+        if (mode == Mode.VIRTUAL && !VirtualThreads.isAvailable()) {
+            System.err.println("[BankEngine] VIRTUAL mode needs Java 21+, falling back to LOCKING");
+            mode = Mode.LOCKING;
+        }
 
-        // clean + unique
-        Set<String> s = new HashSet<>();
-        if (keys != null) {
-            for (String k : keys) {
-                if (k == null) continue;
-                String t = k.trim();
-                if (!t.isEmpty()) s.add(t);
+        this.mode = mode;
+        this.gate = gate;
+        this.locks = new LockTable(lockStripes, fairLocks);
+        switch (mode) {
+            case SHARDED -> {
+                this.pool = null;
+                this.shards = new ShardedExecutor(threads);
+                this.dbPermits = null;
+            }
+            case VIRTUAL -> {
+                this.pool = VirtualThreads.newPerTaskExecutor();
+                this.shards = null;
+                this.dbPermits = new Semaphore(Math.max(1, threads));
+            }
+            default -> {
+                this.pool = Executors.newFixedThreadPool(Math.max(1, threads));
+                this.shards = null;
+                this.dbPermits = null;
             }
         }
 
-        List<String> clean = new ArrayList<>(s);
-        clean.sort(String::compareTo); // avoid deadlock
+        // deposits/withdrawals of the same account merged into one commit per micro-batch
+        boolean coalesce = Boolean.getBoolean("bank.engine.coalesce");
+        if (coalesce && WriteAheadLog.active() != null) {
+            // the WAL already batches: one fsync per interval, database writes at checkpoints
+            System.out.println("[BankEngine] WAL is on, bank.engine.coalesce ignored");
+            coalesce = false;
+        }
+        this.coalescer = coalesce
+                ? new CoalescingStage(this::runBatch,
+                        Integer.getInteger("bank.engine.coalesceBatch", 256),
+                        Long.getLong("bank.engine.coalesceMs", 1L))
+                : null;
+    }
 
-        List<ReentrantLock> locks = new ArrayList<>();
-        for (String k : clean) {
-            locks.add(accountLocks.computeIfAbsent(k, x -> new ReentrantLock(true)));
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     * Queue a transaction. The future completes once it has run (and its ledger row is durable):
+     * DONE / FAILED with balances, ledger id and timings, or REJECTED when the queue is full.
+     * It is completed on an engine thread: UI code must hop back with SwingUtilities.invokeLater.
+     */
+    public CompletableFuture<TransactionResult> submit(Transaction tx) {
+        if (tx == null) return CompletableFuture.completedFuture(TransactionResult.failed("No transaction"));
+
+        Ticket ticket = new Ticket(tx);
+
+        // bounded: at most queueCapacity transactions waiting for a worker
+        switch (gate.admit(mode != Mode.SHARDED)) {
+            case REJECTED -> {
+                System.err.println("[BankEngine] queue full, transaction rejected");
+                ticket.reject("Engine queue full");
+                return ticket.future;
+            }
+            case CALLER_RUNS -> {
+                ticket.started = ticket.enqueued;
+                ticket.finish(runSafely(tx));
+                return ticket.future;
+            }
+            default -> { }
         }
 
-        for (ReentrantLock L : locks) L.lock();
         try {
-            tx.execute();
-        } finally {
-            for (int i = locks.size() - 1; i >= 0; i--) locks.get(i).unlock();
+            if (coalescer != null && tx instanceof CoalescableTransaction c) {
+                coalescer.add(c, ticket::start, ticket::finish);
+                return ticket.future;
+            }
+
+            if (mode == Mode.SHARDED) {
+                shards.submit(tx, ticket::start, ticket::finish);
+                return ticket.future;
+            }
+
+            // execute (not submit): no FutureTask wrapper per transaction
+            pool.execute(new Queued(() -> {
+                ticket.start();
+                ticket.finish(runSafely(tx));
+            }, ticket::dropped));
+            return ticket.future;
+        } catch (RuntimeException e) {
+            gate.cancelled(); // never reached a worker: give the slot back
+            throw e;
         }
     }
 
-    // Robust reflection (works even for non-public inner classes)
-    private List<String> getLockKeysIfExists(Transaction tx) {
+    // one per submit: the caller's future + timings
+    private final class Ticket {
+        final Transaction tx;
+        final CompletableFuture<TransactionResult> future = new CompletableFuture<>();
+        final long enqueued = System.nanoTime();
+        long started; // written and read on engine threads (the shard hand-off publishes it)
+
+        Ticket(Transaction tx) {
+            this.tx = tx;
+        }
+
+        void start() {
+            started = System.nanoTime();
+            gate.started(enqueued);
+        }
+
+        // never executed: same answer as a full queue
+        void reject(String reason) {
+            TransactionResult rejected = TransactionResult.rejected(reason);
+            if (tx.onRejected()) rejected = rejected.withLedgerRow();
+            publish(tx, rejected);
+            future.complete(rejected);
+        }
+
+        // still queued when shutdown() stopped the pool
+        void dropped() {
+            gate.cancelled();
+            reject("Engine shut down");
+        }
+
+        void finish(TransactionResult r) {
+            if (r == null) r = TransactionResult.done();
+            TransactionResult timed = r.withTimings(started - enqueued, System.nanoTime() - started);
+
+            // group-committed ledger row: published and completed when it is durable, without blocking this thread
+            CompletableFuture<Integer> row = timed.getPendingLedger();
+            if (row == null) {
+                publish(tx, timed);
+                future.complete(timed);
+                return;
+            }
+            row.whenComplete((id, err) -> {
+                TransactionResult last = (err == null) ? timed.withLedgerId(id)
+                        : TransactionResult.failed("Not persisted: " + err.getMessage()) // no row, no balance change
+                                .withTimings(timed.getQueuedNanos(), timed.getExecutionNanos());
+                publish(tx, last);
+                future.complete(last);
+            });
+        }
+    }
+
+    /** Called for every finished transaction, once its ledger row is durable (see TransactionListener). */
+    public void addListener(TransactionListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(TransactionListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(Transaction tx, TransactionResult r) {
+        for (TransactionListener l : listeners) {
+            try {
+                l.onCompleted(tx, r);
+            } catch (RuntimeException e) {
+                System.err.println("[BankEngine] listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // coalesced account batch: completes its operations' futures itself (onRejected() if dropped)
+    private void runBatch(Transaction batch) {
+        if (mode == Mode.SHARDED) {
+            shards.submit(batch, () -> { }, r -> { });
+            return;
+        }
+        pool.execute(new Queued(() -> runSafely(batch), batch::onRejected));
+    }
+
+    // pool task + how to answer its caller if shutdownNow() drops it before it runs
+    private record Queued(Runnable work, Runnable dropped) implements Runnable {
+        @Override
+        public void run() {
+            work.run();
+        }
+    }
+
+    private TransactionResult runSafely(Transaction tx) {
         try {
-            Method m;
+            return executeSafely(tx);
+        } catch (Exception e) {
+            System.err.println("[BankEngine] Transaction failed: " + e.getMessage());
+            e.printStackTrace();
+            return TransactionResult.failed(String.valueOf(e.getMessage()));
+        }
+    }
+
+    private TransactionResult executeSafely(Transaction tx) {
+        // direct interface call, ids are precomputed by the transaction
+        int[] ids = tx.lockIds();
+        int n = (ids == null) ? 0 : ids.length;
+
+        // no ids, or CAS-based deposit / withdrawal: no account lock at all
+        if (n == 0 || !tx.needsLocks()) {
+            return runWithPermit(tx);
+        }
+
+        if (n == 1) {
+            int s = locks.stripeOf(ids[0]);
+            locks.lock(s);
             try {
-                // most cases
-                m = tx.getClass().getMethod("lockKeys");
-            } catch (NoSuchMethodException ex) {
-                // inner/non-public cases
-                m = tx.getClass().getDeclaredMethod("lockKeys");
-                m.setAccessible(true);
+                return runWithPermit(tx);
+            } finally {
+                locks.unlock(s);
             }
+        }
+
+        if (n == 2) {
+            // transfers: no allocation, lower stripe first => no deadlock
+            int a = locks.stripeOf(ids[0]);
+            int b = locks.stripeOf(ids[1]);
+            int first = Math.min(a, b);
+            int second = Math.max(a, b);
 
-            Object res = m.invoke(tx);
-            if (res instanceof List<?>) {
-                List<?> list = (List<?>) res;
-                List<String> out = new ArrayList<>();
-                for (Object o : list) {
-                    if (o != null) out.add(o.toString());
+            locks.lock(first);
+            try {
+                if (second != first) locks.lock(second);
+                try {
+                    return runWithPermit(tx);
+                } finally {
+                    if (second != first) locks.unlock(second);
                 }
-                return out;
+            } finally {
+                locks.unlock(first);
             }
-        } catch (NoSuchMethodException ignored) {
-            // no lockKeys() => no locks
-        } catch (Exception e) {
-            System.err.println("[BankEngine] lockKeys() error: " + e.getMessage());
         }
-        return Collections.emptyList();
+
+        // general case: sorted distinct stripes
+        int[] stripes = new int[n];
+        for (int i = 0; i < n; i++) stripes[i] = locks.stripeOf(ids[i]);
+        Arrays.sort(stripes);
+
+        int locked = 0;
+        try {
+            for (int i = 0; i < n; i++) {
+                if (i > 0 && stripes[i] == stripes[i - 1]) continue;
+                locks.lock(stripes[i]);
+                locked = i + 1;
+            }
+            return runWithPermit(tx);
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                if (i > 0 && stripes[i] == stripes[i - 1]) continue;
+                locks.unlock(stripes[i]);
+            }
+        }
+    }
+
+    // VIRTUAL: permit taken AFTER the account locks, so it is only held while doing DB work
+    private TransactionResult runWithPermit(Transaction tx) {
+        if (dbPermits == null) {
+            return tx.execute();
+        }
+        dbPermits.acquireUninterruptibly();
+        try {
+            return tx.execute();
+        } finally {
+            dbPermits.release();
+        }
+    }
+
+    public LockTable.LockStats lockStats() {
+        return locks.stats();
+    }
+
+    /** Queue depth, rejections and time spent waiting for a worker. */
+    public QueueStats queueStats() {
+        return gate.stats();
+    }
+
+    /** Operations per commit of the coalescing stage (all zero when it is disabled). */
+    public CoalescingStats coalescingStats() {
+        return (coalescer != null) ? coalescer.stats() : new CoalescingStats(0, 0);
     }
 
     public void shutdown() {
+        // queued deposits/withdrawals first, while the workers are still running
+        if (coalescer != null) coalescer.close();
+
+        if (mode == Mode.SHARDED) {
+            shards.shutdown(800);
+            return;
+        }
+
         pool.shutdown();
         try {
             if (!pool.awaitTermination(800, TimeUnit.MILLISECONDS)) {
-                pool.shutdownNow();
+                rejectDropped(pool.shutdownNow());
             }
         } catch (InterruptedException e) {
-            pool.shutdownNow();
+            rejectDropped(pool.shutdownNow());
             Thread.currentThread().interrupt();
         }
     }
+
+    // every future returned by submit() completes, even for work that never ran
+    private static void rejectDropped(List<Runnable> dropped) {
+        int n = 0;
+        for (Runnable r : dropped) {
+            if (r instanceof Queued q) {
+                q.dropped().run();
+                n++;
+            }
+        }
+        if (n > 0) System.err.println("[BankEngine] shut down: " + n + " queued task(s) rejected");
+    }
 }
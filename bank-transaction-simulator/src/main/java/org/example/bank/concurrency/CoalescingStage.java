@@ -0,0 +1,244 @@
+package org.example.bank.concurrency;
+
+import org.example.bank.dao.LedgerRow;
+import org.example.bank.model.Account;
+import org.example.bank.model.Money;
+import org.example.bank.storage.Storage;
+import org.example.bank.storage.TransactionStore;
+import org.example.bank.transactions.CoalescableTransaction;
+import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Micro-batching stage for deposits and withdrawals, in front of the engine workers.
+ *
+ * One drainer thread takes what is queued (up to {@code maxBatch}, waiting at most {@code lingerMs}
+ * for more), groups it by account and hands each group to the engine as ONE locked task.
+ * The group is applied in memory in submission order (every withdrawal still checks the funds),
+ * then the net balance change and all ledger rows are written with a single commit.
+ * The batch keeps the account lock: the net change is applied to the live account as one CAS.
+ */
+class CoalescingStage {
+
+    private static final class Pending {
+        final CoalescableTransaction tx;
+        final Runnable onStart;
+        final Consumer<TransactionResult> onDone;
+
+        Pending(CoalescableTransaction tx, Runnable onStart, Consumer<TransactionResult> onDone) {
+            this.tx = tx;
+            this.onStart = onStart;
+            this.onDone = onDone;
+        }
+    }
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+    private final Consumer<Transaction> runner;
+    private final int maxBatch;
+    private final long lingerMs;
+    private final Thread drainer;
+    private volatile boolean running = true;
+
+    private final TransactionStore transactionDAO = Storage.shared().transactions();
+    private final LongAdder operations = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+
+    /** @param runner runs a transaction on an engine worker, under the locks of its lockIds() */
+    CoalescingStage(Consumer<Transaction> runner, int maxBatch, long lingerMs) {
+        this.runner = runner;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerMs = Math.max(0, lingerMs);
+
+        this.drainer = new Thread(this::runLoop, "coalescer");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    void add(CoalescableTransaction tx, Runnable onStart, Consumer<TransactionResult> onDone) {
+        if (!running) throw new IllegalStateException("BankEngine is shut down");
+        queue.add(new Pending(tx, onStart, onDone));
+    }
+
+    private void runLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // linger a little so that a burst on a hot account lands in the same batch
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    Pending next = (left > 0) ? queue.poll(left, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+
+                dispatch(batch);
+            } catch (InterruptedException e) {
+                // close(): hand over what is left, then stop
+                running = false;
+                queue.drainTo(batch);
+                if (!batch.isEmpty()) dispatch(batch);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void dispatch(List<Pending> batch) {
+        Map<Integer, List<Pending>> byAccount = new LinkedHashMap<>();
+        for (Pending p : batch) {
+            byAccount.computeIfAbsent(p.tx.account().getId(), k -> new ArrayList<>()).add(p);
+        }
+
+        for (List<Pending> ops : byAccount.values()) {
+            try {
+                runner.accept(new AccountBatch(ops));
+            } catch (RuntimeException e) {
+                reject(ops, "Engine stopped"); // the operations never start
+            }
+        }
+    }
+
+    // answered like a full engine queue: nothing applied, FAILED row where the operation logs one
+    private static void reject(List<Pending> ops, String reason) {
+        for (Pending p : ops) {
+            p.onStart.run();
+            TransactionResult r = TransactionResult.rejected(reason);
+            if (p.tx.onRejected()) r = r.withLedgerRow();
+            p.onDone.accept(r);
+        }
+    }
+
+    /** Every queued operation of one account, run as a single engine task. */
+    private final class AccountBatch implements Transaction {
+        private final List<Pending> ops;
+        private final int[] lockIds;
+
+        AccountBatch(List<Pending> ops) {
+            this.ops = ops;
+            this.lockIds = new int[]{ ops.get(0).tx.account().getId() };
+        }
+
+        @Override
+        public int[] lockIds() {
+            return lockIds;
+        }
+
+        // dropped by the engine's shutdown before it ran
+        @Override
+        public boolean onRejected() {
+            reject(ops, "Engine shut down");
+            return false;
+        }
+
+        @Override
+        public TransactionResult execute() {
+            for (Pending p : ops) p.onStart.run();
+            try {
+                apply();
+            } catch (Exception e) {
+                System.err.println("[Coalescer] batch failed: " + e.getMessage());
+                e.printStackTrace();
+                // completing twice is a no-op: only the operations not answered yet see this
+                for (Pending p : ops) p.onDone.accept(TransactionResult.failed(String.valueOf(e.getMessage())));
+            }
+            return null;
+        }
+
+        private void apply() {
+            int n = ops.size();
+            Account acc = ops.get(0).tx.account();
+            String ref = acc.getAccountRef();
+
+            // 1) in order, on a local copy: same checks as DepositTransaction / WithdrawTransaction
+            long balance = acc.getBalanceCents();
+            long net = 0;
+            boolean[] ok = new boolean[n];
+            long[] after = new long[n];
+            List<LedgerRow> rows = new ArrayList<>(n);
+
+            for (int i = 0; i < n; i++) {
+                CoalescableTransaction tx = ops.get(i).tx;
+                long d = tx.deltaCents();
+                String from = (d < 0) ? ref : null;
+                String to = (d < 0) ? null : ref;
+
+                ok[i] = d >= 0 || balance >= -d;
+                if (ok[i]) {
+                    balance += d;
+                    net += d;
+                }
+                after[i] = balance;
+                rows.add(new LedgerRow(tx.ledgerType(), from, to, Money.toAmount(Math.abs(d)), ok[i] ? "DONE" : "FAILED"));
+            }
+
+            // 2) net debit reserved on the live account before the commit (database stays >= memory)
+            if (net < 0 && acc.tryDebit(-net) == Account.INSUFFICIENT_FUNDS) {
+                for (Pending p : ops) p.onDone.accept(TransactionResult.failed("Balance changed concurrently"));
+                return;
+            }
+
+            // 3) one commit: net UPDATE + every ledger row
+            int[] ids = transactionDAO.applyNetAndLog(acc.getId(), Money.toAmount(net), rows);
+            if (ids == null) {
+                if (net < 0) acc.credit(-net);
+                for (Pending p : ops) p.onDone.accept(TransactionResult.failed("Rejected by database"));
+                return;
+            }
+            if (net > 0) acc.credit(net);
+
+            commits.increment();
+            operations.add(n);
+
+            System.out.println("[Coalescer] " + ref + ": " + n + " operation(s) in one commit"
+                    + ", net " + Money.toAmount(net) + ", new balance: " + Money.toAmount(balance));
+
+            // 4) answer every caller
+            for (int i = 0; i < n; i++) {
+                Pending p = ops.get(i);
+                double balanceAfter = Money.toAmount(after[i]);
+                if (!ok[i]) {
+                    p.onDone.accept(TransactionResult.failed("Insufficient balance").withLedgerRow()); // its FAILED row is in the commit
+                } else if (p.tx.deltaCents() < 0) {
+                    p.onDone.accept(TransactionResult.done(acc.getId(), balanceAfter, -1, Double.NaN, ids[i]));
+                } else {
+                    p.onDone.accept(TransactionResult.done(-1, Double.NaN, acc.getId(), balanceAfter, ids[i]));
+                }
+            }
+        }
+    }
+
+    CoalescingStats stats() {
+        return new CoalescingStats(operations.sum(), commits.sum());
+    }
+
+    /** Hand every queued operation to the engine and stop the drainer thread. */
+    void close() {
+        running = false;
+        drainer.interrupt();
+        try {
+            drainer.join(); // dispatching never blocks: the drainer ends right after the last batch
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // added while closing (after the drainer's last look), or left if close() was interrupted
+        List<Pending> left = new ArrayList<>();
+        queue.drainTo(left);
+        if (!left.isEmpty()) reject(left, "Engine shut down");
+    }
+}
@@ -0,0 +1,14 @@
+package org.example.bank.concurrency;
+
+/**
+ * Snapshot of BankEngine's coalescing stage (bank.engine.coalesce=true).
+ *
+ * @param operations deposits/withdrawals that went through the stage
+ * @param commits    database commits used for them (one per account per micro-batch)
+ */
+public record CoalescingStats(long operations, long commits) {
+
+    public double avgOpsPerCommit() {
+        return commits == 0 ? 0 : operations / (double) commits;
+    }
+}
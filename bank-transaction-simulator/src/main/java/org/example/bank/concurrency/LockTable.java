@@ -0,0 +1,88 @@
+package org.example.bank.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size striped lock table keyed by numeric account id.
+ * Memory is bounded by the stripe count, no matter how many accounts exist.
+ * Two accounts may share a stripe (they then serialize), which is safe.
+ *
+ * This is the ONLY account-level concurrency control: transactions run inside it
+ * and do not take any lock of their own.
+ */
+public class LockTable {
+
+    // largest power of two an int array size can hold
+    private static final int MAX_STRIPES = 1 << 30;
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final boolean fair;
+
+    // ---- contention counters
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contended = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public LockTable(int stripeCount, boolean fair) {
+        int clamped = Math.min(MAX_STRIPES, Math.max(2, stripeCount));
+        int size = Integer.highestOneBit(clamped - 1) << 1; // next power of two
+        this.stripes = new ReentrantLock[size];
+        this.mask = size - 1;
+        this.fair = fair;
+        for (int i = 0; i < size; i++) stripes[i] = new ReentrantLock(fair);
+    }
+
+    public int stripeOf(int accountId) {
+        int h = accountId * 0x9E3779B9; // spread consecutive ids
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public void lock(int stripe) {
+        ReentrantLock l = stripes[stripe];
+        acquisitions.increment();
+        // uncontended fast path; only time the slow path
+        if (fair ? tryFair(l) : l.tryLock()) return;
+
+        contended.increment();
+        long t0 = System.nanoTime();
+        l.lock();
+        waitNanos.add(System.nanoTime() - t0);
+    }
+
+    // untimed tryLock() barges even on a fair lock; the timed one does not overtake queued waiters
+    private static boolean tryFair(ReentrantLock l) {
+        try {
+            return l.tryLock(0, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // lock() below does not care, keep the flag for the caller
+            return false;
+        }
+    }
+
+    public void unlock(int stripe) {
+        stripes[stripe].unlock();
+    }
+
+    public int size() {
+        return stripes.length;
+    }
+
+    public boolean isFair() {
+        return fair;
+    }
+
+    public LockStats stats() {
+        long n = contended.sum();
+        return new LockStats(
+                acquisitions.sum(),
+                n,
+                n == 0 ? 0 : waitNanos.sum() / n / 1000.0
+        );
+    }
+
+    public record LockStats(long acquisitions, long contended, double avgContendedWaitMicros) {
+    }
+}
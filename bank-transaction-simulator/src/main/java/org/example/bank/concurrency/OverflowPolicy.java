@@ -0,0 +1,15 @@
+package org.example.bank.concurrency;
+
+/**
+ * What BankEngine.submit does when the submission queue is full.
+ */
+public enum OverflowPolicy {
+    /** Wait until a slot frees up (backpressure on the caller). */
+    BLOCK,
+    /** Run the transaction in the submitting thread (SHARDED mode: behaves like BLOCK). */
+    CALLER_RUNS,
+    /** Refuse immediately; the transaction records a FAILED ledger entry. */
+    REJECT,
+    /** Wait up to the offer timeout, then REJECT. */
+    TIMEOUT
+}
@@ -0,0 +1,15 @@
+package org.example.bank.concurrency;
+
+/**
+ * Snapshot of the BankEngine submission queue (see BankEngine.queueStats()).
+ */
+public record QueueStats(int capacity,
+                         OverflowPolicy policy,
+                         int depth,
+                         long maxDepth,
+                         long submitted,
+                         long rejected,
+                         long callerRuns,
+                         double avgWaitMs,
+                         double maxWaitMs) {
+}
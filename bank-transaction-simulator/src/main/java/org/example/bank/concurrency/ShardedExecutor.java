@@ -0,0 +1,183 @@
+package org.example.bank.concurrency;
+
+import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
+import org.example.bank.transactions.TwoPhaseTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer shards: every account id is owned by exactly one thread,
+ * so operations on it run one after the other without any lock.
+ * Cross-shard transfers are handed off: debit on the source shard, then credit on the target shard.
+ */
+class ShardedExecutor {
+
+    private final ExecutorService[] shards;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    ShardedExecutor(int shardCount) {
+        this.shards = new ExecutorService[Math.max(1, shardCount)];
+        for (int i = 0; i < shards.length; i++) {
+            String name = "shard-" + i;
+            shards[i] = Executors.newSingleThreadExecutor(r -> new Thread(r, name));
+        }
+    }
+
+    int shardOf(int accountId) {
+        return Math.floorMod(accountId, shards.length);
+    }
+
+    /**
+     * @param onStart run on the shard thread right before the (first phase of the) transaction
+     * @param onDone  receives the final result, on the shard thread that produced it
+     */
+    void submit(Transaction tx, Runnable onStart, Consumer<TransactionResult> onDone) {
+        int[] ids = tx.lockIds();
+        int n = (ids == null) ? 0 : ids.length;
+
+        Runnable rejected = () -> {
+            onStart.run();
+            TransactionResult r = TransactionResult.rejected("Engine shut down");
+            if (tx.onRejected()) r = r.withLedgerRow();
+            onDone.accept(r);
+        };
+
+        if (n == 0) {
+            dispatch(0, () -> {
+                onStart.run();
+                onDone.accept(safely(tx::execute));
+            }, rejected);
+            return;
+        }
+
+        int owner = shardOf(ids[0]);
+        boolean sameShard = true;
+        for (int i = 1; i < n; i++) {
+            if (shardOf(ids[i]) != owner) {
+                sameShard = false;
+                break;
+            }
+        }
+
+        if (sameShard) {
+            dispatch(owner, () -> {
+                onStart.run();
+                onDone.accept(safely(tx::execute));
+            }, rejected);
+            return;
+        }
+
+        if (tx instanceof TwoPhaseTransaction tp) {
+            int from = shardOf(tp.debitAccountId());
+            int to = shardOf(tp.creditAccountId());
+            inFlight.incrementAndGet(); // keep shutdown waiting for the credit hand-off
+            dispatch(from, () -> {
+                try {
+                    onStart.run();
+                    TransactionResult stop = safely(tp::debit);
+                    if (stop != null) {
+                        onDone.accept(stop);
+                    } else {
+                        // the debit is applied: the credit must run, even once the shards are closing
+                        Runnable credit = () -> onDone.accept(safely(tp::credit));
+                        try {
+                            dispatch(to, credit, credit);
+                        } catch (RejectedExecutionException e) {
+                            credit.run();
+                        }
+                    }
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }, rejected);
+            return;
+        }
+
+        throw new IllegalArgumentException("Sharded mode cannot run " + tx.getClass().getSimpleName()
+                + ": it spans several shards and is not a TwoPhaseTransaction");
+    }
+
+    // a failing phase still completes the caller's future
+    private static TransactionResult safely(Supplier<TransactionResult> phase) {
+        try {
+            return phase.get();
+        } catch (Exception e) {
+            System.err.println("[BankEngine] Transaction failed: " + e.getMessage());
+            e.printStackTrace();
+            return TransactionResult.failed(String.valueOf(e.getMessage()));
+        }
+    }
+
+    // dropped: what to run instead if shutdown() finds the work still queued
+    private void dispatch(int shard, Runnable work, Runnable dropped) {
+        inFlight.incrementAndGet();
+        try {
+            shards[shard].execute(new Queued(() -> {
+                try {
+                    work.run();
+                } catch (Exception e) {
+                    System.err.println("[BankEngine] Transaction failed: " + e.getMessage());
+                    e.printStackTrace();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }, dropped));
+        } catch (RejectedExecutionException e) {
+            inFlight.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private record Queued(Runnable work, Runnable dropped) implements Runnable {
+        @Override
+        public void run() {
+            work.run();
+        }
+    }
+
+    void shutdown(long timeoutMs) {
+        // let pending hand-offs land before closing the shards
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (inFlight.get() > 0 && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        List<Runnable> dropped = new ArrayList<>();
+        for (ExecutorService s : shards) dropped.addAll(s.shutdownNow());
+
+        // shard threads finish their current task first: the dropped work then runs here alone
+        for (ExecutorService s : shards) {
+            try {
+                s.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        int n = 0;
+        for (Runnable r : dropped) {
+            if (r instanceof Queued q) {
+                q.dropped().run();
+                n++;
+            }
+        }
+        if (n > 0) System.err.println("[BankEngine] shut down: " + n + " queued shard task(s) answered");
+    }
+
+    int size() {
+        return shards.length;
+    }
+}
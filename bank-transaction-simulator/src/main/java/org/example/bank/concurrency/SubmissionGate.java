@@ -0,0 +1,115 @@
+package org.example.bank.concurrency;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounds the number of submitted-but-not-started transactions (all engine modes)
+ * and measures how long they wait before a worker picks them up.
+ */
+class SubmissionGate {
+
+    enum Admission { QUEUED, CALLER_RUNS, REJECTED }
+
+    private final int capacity;
+    private final OverflowPolicy policy;
+    private final long offerTimeoutMs;
+    private final Semaphore slots;
+
+    // ---- gauges / counters
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder callerRuns = new LongAdder();
+    private final LongAdder started = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxDepth = new AtomicLong();
+
+    SubmissionGate(int capacity, OverflowPolicy policy, long offerTimeoutMs) {
+        this.capacity = Math.max(1, capacity);
+        this.policy = policy;
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+        this.slots = new Semaphore(this.capacity);
+    }
+
+    Admission admit(boolean callerRunsAllowed) {
+        submitted.increment();
+        boolean ok = slots.tryAcquire();
+
+        if (!ok) {
+            switch (policy) {
+                case BLOCK -> ok = acquireBlocking();
+                case CALLER_RUNS -> {
+                    if (callerRunsAllowed) {
+                        callerRuns.increment();
+                        return Admission.CALLER_RUNS;
+                    }
+                    ok = acquireBlocking();
+                }
+                case TIMEOUT -> ok = acquireWithin(offerTimeoutMs);
+                case REJECT -> ok = false;
+            }
+        }
+
+        if (!ok) {
+            rejected.increment();
+            return Admission.REJECTED;
+        }
+        maxDepth.accumulateAndGet(depth(), Math::max);
+        return Admission.QUEUED;
+    }
+
+    /** A worker picked the transaction up: free its slot and record the queue wait. */
+    void started(long enqueuedNanos) {
+        slots.release();
+        started.increment();
+        long w = System.nanoTime() - enqueuedNanos;
+        waitNanos.add(w);
+        maxWaitNanos.accumulateAndGet(w, Math::max);
+    }
+
+    /** Admitted but could not be dispatched (engine shut down, unsupported transaction...). */
+    void cancelled() {
+        slots.release();
+    }
+
+    private boolean acquireBlocking() {
+        try {
+            slots.acquire();
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean acquireWithin(long ms) {
+        try {
+            return slots.tryAcquire(ms, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    int depth() {
+        return capacity - slots.availablePermits();
+    }
+
+    QueueStats stats() {
+        long n = started.sum();
+        return new QueueStats(
+                capacity,
+                policy,
+                depth(),
+                maxDepth.get(),
+                submitted.sum(),
+                rejected.sum(),
+                callerRuns.sum(),
+                n == 0 ? 0 : waitNanos.sum() / n / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0
+        );
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.bank.concurrency;
+
+import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
+
+/** Told about every transaction BankEngine finishes (DONE, FAILED or REJECTED). */
+@FunctionalInterface
+public interface TransactionListener {
+
+    /**
+     * Runs on the engine thread that finished tx, or on the thread that made its group-committed
+     * ledger row durable: keep it short and never block.
+     */
+    void onCompleted(Transaction tx, TransactionResult result);
+}
@@ -0,0 +1,47 @@
+package org.example.bank.concurrency;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Access to Executors.newVirtualThreadPerTaskExecutor() (Java 21+) while the
+ * project still compiles for Java 17. Looked up once, never on the submit path.
+ */
+final class VirtualThreads {
+
+    private static final MethodHandle FACTORY = lookupFactory();
+
+    private VirtualThreads() {
+    }
+
+    static boolean isAvailable() {
+        return FACTORY != null;
+    }
+
+    static ExecutorService newPerTaskExecutor() {
+        if (FACTORY == null) {
+            throw new UnsupportedOperationException("Virtual threads need Java 21+ (running "
+                    + Runtime.version().feature() + ")");
+        }
+        try {
+            return (ExecutorService) FACTORY.invoke();
+        } catch (Throwable t) {
+            throw new IllegalStateException("Cannot create virtual-thread executor", t);
+        }
+    }
+
+    private static MethodHandle lookupFactory() {
+        try {
+            return MethodHandles.publicLookup().findStatic(
+                    Executors.class,
+                    "newVirtualThreadPerTaskExecutor",
+                    MethodType.methodType(ExecutorService.class)
+            );
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        }
+    }
+}
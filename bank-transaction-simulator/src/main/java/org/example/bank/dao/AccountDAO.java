@@ -1,33 +1,99 @@
 package org.example.bank.dao;
 
 import org.example.bank.DBConnection;
+import org.example.bank.PooledConnection;
 import org.example.bank.model.Account;
+import org.example.bank.storage.AccountStore;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Stream;
 
-public class AccountDAO {
+public class AccountDAO implements AccountStore {
+
+    // ids per IN (...) query: always this many placeholders => one cached statement
+    private static final int IDS_PER_QUERY = 100;
+
+    private static final String FIND_BY_IDS = "SELECT id, user_id, account_ref, balance FROM accounts WHERE id IN ("
+            + String.join(", ", Collections.nCopies(IDS_PER_QUERY, "?")) + ")";
+
+    private static Account account(ResultSet rs) throws SQLException {
+        return new Account(
+                rs.getInt("id"),
+                rs.getInt("user_id"),
+                rs.getString("account_ref"),
+                rs.getDouble("balance")
+        );
+    }
 
     public List<Account> findAll() {
         List<Account> accounts = new ArrayList<>();
         String sql = "SELECT id, user_id, account_ref, balance FROM accounts ORDER BY id ASC";
 
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
+        try (PooledConnection conn = DBConnection.getConnection();
+             ResultSet rs = conn.cachedStatement(sql).executeQuery()) {
 
             while (rs.next()) {
-                accounts.add(new Account(
-                        rs.getInt("id"),
-                        rs.getInt("user_id"),
-                        rs.getString("account_ref"),
-                        rs.getDouble("balance")
-                ));
+                accounts.add(account(rs));
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return accounts;
+    }
+
+    /**
+     * Every account in id order, read lazily (see RowStreams): constant heap whatever the table size.
+     * Close the stream (try-with-resources): it holds a pooled connection until then.
+     */
+    public Stream<Account> streamAll() {
+        return RowStreams.stream("SELECT id, user_id, account_ref, balance FROM accounts ORDER BY id ASC", AccountDAO::account);
+    }
+
+    /** @return null if there is no such account */
+    public Account findById(int accountId) {
+        String sql = "SELECT id, user_id, account_ref, balance FROM accounts WHERE id = ?";
+
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
+            stmt.setInt(1, accountId);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) return account(rs);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * The existing accounts among {@code ids}, in no particular order (missing ids are skipped).
+     * One query per IDS_PER_QUERY ids, all on the same connection.
+     */
+    public List<Account> findByIds(int[] ids) {
+        List<Account> accounts = new ArrayList<>(ids.length);
+        if (ids.length == 0) return accounts;
+
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(FIND_BY_IDS);
+
+            for (int from = 0; from < ids.length; from += IDS_PER_QUERY) {
+                int to = Math.min(ids.length, from + IDS_PER_QUERY);
+                for (int i = 0; i < IDS_PER_QUERY; i++) {
+                    // last chunk: repeat its last id (IN ignores duplicates)
+                    stmt.setInt(i + 1, ids[Math.min(from + i, to - 1)]);
+                }
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {
+                        accounts.add(account(rs));
+                    }
+                }
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -45,19 +111,14 @@ public class AccountDAO {
             ORDER BY id ASC
         """;
 
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
             stmt.setInt(1, userId);
 
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                accounts.add(new Account(
-                        rs.getInt("id"),
-                        rs.getInt("user_id"),
-                        rs.getString("account_ref"),
-                        rs.getDouble("balance")
-                ));
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    accounts.add(account(rs));
+                }
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -65,20 +126,23 @@ public class AccountDAO {
         return accounts;
     }
 
-    public void updateBalance(int accountId, double newBalance) {
-        String sql = "UPDATE accounts SET balance = ? WHERE id = ?";
+    // ✅ Relative update: concurrent deposits / withdrawals commute (no lost update).
+    // No absolute "SET balance = ?" on purpose: a shard writing a balance it read earlier
+    // would overwrite a transfer committed meanwhile by another shard.
+    public boolean addToBalance(int accountId, double delta) {
+        String sql = "UPDATE accounts SET balance = ROUND(balance + ?, 2) WHERE id = ?";
 
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
 
-            stmt.setDouble(1, newBalance);
+            stmt.setDouble(1, delta);
             stmt.setInt(2, accountId);
 
-            stmt.executeUpdate();
+            return stmt.executeUpdate() == 1;
         } catch (Exception e) {
             e.printStackTrace();
         }
+        return false;
     }
 
     public Account findByAccountRef(String accountRef) {
@@ -88,19 +152,12 @@ public class AccountDAO {
             WHERE account_ref = ?
         """;
 
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
             stmt.setString(1, accountRef);
 
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return new Account(
-                        rs.getInt("id"),
-                        rs.getInt("user_id"),
-                        rs.getString("account_ref"),
-                        rs.getDouble("balance")
-                );
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) return account(rs);
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -116,28 +173,28 @@ public class AccountDAO {
 
     // ✅ Renvoie l'ID du compte créé (utile si tu veux afficher / log)
     public int createDefaultAccountForUserReturnAccountId(int userId) {
-        String insert = "INSERT INTO accounts (user_id, account_ref, balance) VALUES (?, ?, 0)";
+        String insert = "INSERT INTO accounts (user_id, account_ref, balance, opening_balance) VALUES (?, ?, 0, 0)";
         String updateRef = "UPDATE accounts SET account_ref = ? WHERE id = ?";
 
-        try {
-            Connection conn = DBConnection.getConnection();
+        try (PooledConnection conn = DBConnection.getConnection()) {
 
             // 1) Insert avec une ref temporaire (obligatoire si NOT NULL)
-            PreparedStatement stInsert = conn.prepareStatement(insert, Statement.RETURN_GENERATED_KEYS);
+            PreparedStatement stInsert = conn.cachedStatement(insert, Statement.RETURN_GENERATED_KEYS);
             stInsert.setInt(1, userId);
             stInsert.setString(2, "TMP"); // temporaire
             int rows = stInsert.executeUpdate();
             if (rows <= 0) return -1;
 
             // 2) Récupérer ID auto-généré
-            ResultSet keys = stInsert.getGeneratedKeys();
-            if (!keys.next()) return -1;
-
-            int accountId = keys.getInt(1);
+            int accountId;
+            try (ResultSet keys = stInsert.getGeneratedKeys()) {
+                if (!keys.next()) return -1;
+                accountId = keys.getInt(1);
+            }
 
             // 3) Mettre account_ref = ACC-<accountId>
             String ref = "ACC-" + accountId;
-            PreparedStatement stUpdate = conn.prepareStatement(updateRef);
+            PreparedStatement stUpdate = conn.cachedStatement(updateRef);
             stUpdate.setString(1, ref);
             stUpdate.setInt(2, accountId);
             stUpdate.executeUpdate();
@@ -153,9 +210,8 @@ public class AccountDAO {
     // ✅ Supprimer tous les comptes d'un user (transactions restent)
     public boolean deleteAccountsByUserId(int userId) {
         String sql = "DELETE FROM accounts WHERE user_id = ?";
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
             stmt.setInt(1, userId);
             stmt.executeUpdate();
             return true;
@@ -168,9 +224,8 @@ public class AccountDAO {
     // ✅ Optionnel : supprimer un compte précis
     public boolean deleteAccountById(int accountId) {
         String sql = "DELETE FROM accounts WHERE id = ?";
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
             stmt.setInt(1, accountId);
             return stmt.executeUpdate() > 0;
         } catch (Exception e) {
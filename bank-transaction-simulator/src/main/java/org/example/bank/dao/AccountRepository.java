@@ -0,0 +1,144 @@
+package org.example.bank.dao;
+
+import org.example.bank.model.Account;
+import org.example.bank.storage.AccountStore;
+import org.example.bank.storage.Storage;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Canonical in-memory view of the accounts table: exactly ONE live Account per id,
+ * shared by every panel and by the engine's transactions.
+ *
+ * Loaded once from the AccountStore, reads are then served from memory (indexes by id, ref and userId).
+ * Writes go to the database first, then to the cached object (write-through).
+ */
+public class AccountRepository {
+
+    private static final class Holder {
+        static final AccountRepository SHARED = new AccountRepository(Storage.shared().accounts());
+    }
+
+    public static AccountRepository shared() {
+        return Holder.SHARED;
+    }
+
+    private final AccountStore accountDAO;
+
+    private final Map<Integer, Account> byId = new ConcurrentHashMap<>();
+    private final Map<String, Account> byRef = new ConcurrentHashMap<>();
+    private final Map<Integer, List<Account>> byUserId = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    public AccountRepository(AccountStore accountDAO) {
+        this.accountDAO = accountDAO;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            // streamed: no intermediate List of every account
+            accountDAO.forEachAccount(this::canonical);
+            loaded = true;
+        }
+    }
+
+    /**
+     * The live instance for this account id. A copy loaded elsewhere is registered
+     * if the id is unknown, otherwise it is ignored (memory is authoritative).
+     */
+    public Account canonical(Account account) {
+        if (account == null) return null;
+
+        Account live = byId.putIfAbsent(account.getId(), account);
+        if (live != null) return live;
+
+        byRef.put(account.getAccountRef(), account);
+        byUserId.computeIfAbsent(account.getUserId(), k -> new CopyOnWriteArrayList<>()).add(account);
+        return account;
+    }
+
+    // ---------- READS (memory) ----------
+    public List<Account> findAll() {
+        ensureLoaded();
+        List<Account> all = new ArrayList<>(byId.values());
+        all.sort(Comparator.comparingInt(Account::getId));
+        return all;
+    }
+
+    public Account findById(int accountId) {
+        ensureLoaded();
+        Account a = byId.get(accountId);
+        if (a != null) return a;
+
+        // created outside this process: load it once
+        return canonical(accountDAO.findById(accountId));
+    }
+
+    public Account findByAccountRef(String accountRef) {
+        ensureLoaded();
+        Account a = byRef.get(accountRef);
+        if (a != null) return a;
+
+        // created outside this process: load it once
+        return canonical(accountDAO.findByAccountRef(accountRef));
+    }
+
+    public List<Account> findByUserId(int userId) {
+        ensureLoaded();
+        List<Account> list = byUserId.get(userId);
+        return (list == null) ? List.of() : List.copyOf(list);
+    }
+
+    // ---------- WRITES ----------
+    // Balances move together with their ledger row (TransactionStore.applyAndLogAsync / executeTransfer).
+    // Order keeps database >= memory: a credit is persisted before it can be spent,
+    // a debit is reserved in memory (CAS) before it is persisted.
+
+    /** @return the new live account, or null if it could not be created */
+    public Account createDefaultAccountForUser(int userId) {
+        int accountId = accountDAO.createDefaultAccountForUserReturnAccountId(userId);
+        if (accountId <= 0) return null;
+        return canonical(accountDAO.findById(accountId));
+    }
+
+    public boolean deleteAccountById(int accountId) {
+        if (!accountDAO.deleteAccountById(accountId)) return false;
+        evict(byId.get(accountId));
+        return true;
+    }
+
+    /** Forget the accounts of a user deleted by UserStore.deleteUserCascade. */
+    public void evictUser(int userId) {
+        List<Account> list = byUserId.remove(userId);
+        if (list == null) return;
+        for (Account a : list) {
+            byId.remove(a.getId());
+            byRef.remove(a.getAccountRef());
+        }
+    }
+
+    private void evict(Account a) {
+        if (a == null) return;
+        byId.remove(a.getId());
+        byRef.remove(a.getAccountRef());
+        List<Account> list = byUserId.get(a.getUserId());
+        if (list != null) list.remove(a);
+    }
+
+    /**
+     * Pick up accounts created by another process.
+     * Balances of known accounts are NOT overwritten: the live objects stay authoritative.
+     */
+    public void reload() {
+        ensureLoaded();
+        accountDAO.forEachAccount(this::canonical);
+    }
+}
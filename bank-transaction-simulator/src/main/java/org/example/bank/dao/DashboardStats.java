@@ -0,0 +1,13 @@
+package org.example.bank.dao;
+
+import java.util.List;
+import java.util.Map;
+
+/** Admin dashboard figures, computed by the database (StatsDAO). Balances in cents. */
+public record DashboardStats(long users, long accounts, long balanceCents, long transactions,
+                             Map<String, Long> byType, Map<String, Long> byStatus,
+                             List<TopClient> topClients) {
+
+    public record TopClient(int userId, String username, long balanceCents, long accounts) {
+    }
+}
@@ -0,0 +1,235 @@
+package org.example.bank.dao;
+
+import org.example.bank.model.Money;
+import org.example.bank.storage.Storage;
+import org.example.bank.storage.TransactionStore;
+
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Sweeps ledger rows left PENDING (crash between the insert and markDone/markFailed,
+ * or a failed withdrawal that never called markFailed) and gives them their final status.
+ *
+ * A stored balance must equal the account's opening balance plus the net of its DONE rows plus
+ * the PENDING ones that were really applied. Per account, with unexplained = balance - opening - DONE net:
+ *   unexplained == PENDING net  -> every PENDING row was applied   -> DONE
+ *   unexplained == 0            -> none of them was applied        -> FAILED
+ *   anything else               -> see below
+ * A transfer is decided only when both accounts agree. A row whose account was deleted is FAILED.
+ *
+ * Accounts created by the application open at 0, and accounts without any ledger row get their balance
+ * as opening (schema version 3). An account imported with a balance AND ledger rows (bank_simulator.sql)
+ * has no recorded opening (NULL): balance and ledger cannot tell which of its PENDING rows were applied.
+ * bank.reconcile.opening then decides; an inferred opening is logged and saved, so later sweeps judge
+ * the account exactly:
+ *   keep    left PENDING and reported for a manual check (default: nothing is changed on a guess)
+ *   failed  its PENDING rows were not applied, the difference is the opening balance
+ *   done    its PENDING rows were applied, the rest is the opening balance
+ *
+ * Tuning (JVM system properties):
+ *   bank.reconcile.minAgeSec  only rows older than this, never in-flight ones  (default 300)
+ *   bank.reconcile.periodSec  interval between sweeps, 0 = startup only       (default 600)
+ *   bank.reconcile.page       rows per page / per commit                       (default 500)
+ *   bank.reconcile.opening    keep | failed | done, see above                  (default keep)
+ */
+public class LedgerReconciler implements AutoCloseable {
+
+    /** What one sweep did. */
+    public record Report(int done, int failed, int unresolved) {
+    }
+
+    /** Told about every committed page: that many PENDING rows are now DONE / FAILED. */
+    @FunctionalInterface
+    public interface Listener {
+        void onReconciled(int done, int failed);
+    }
+
+    private enum Verdict { APPLIED, NOT_APPLIED, UNKNOWN, MISSING }
+
+    /** What to assume for an account without a recorded opening balance. */
+    public enum OpeningPolicy { KEEP, FAILED, DONE }
+
+    // two reads of the same account this far apart must agree (ledger rows still being flushed)
+    private static final long SETTLE_MS = 50;
+
+    private final TransactionStore transactionDAO;
+    private final long minAgeMs;
+    private final long periodMs;
+    private final int pageSize;
+    private final OpeningPolicy openingPolicy;
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private Thread thread;
+    private volatile boolean running = true;
+
+    public LedgerReconciler(TransactionStore transactionDAO, long minAgeSeconds, long periodSeconds, int pageSize,
+                            OpeningPolicy openingPolicy) {
+        this.transactionDAO = transactionDAO;
+        this.minAgeMs = Math.max(0, minAgeSeconds) * 1000;
+        this.periodMs = Math.max(0, periodSeconds) * 1000;
+        this.pageSize = Math.max(1, pageSize);
+        this.openingPolicy = openingPolicy;
+    }
+
+    public static LedgerReconciler fromProperties() {
+        return new LedgerReconciler(
+                Storage.shared().transactions(),
+                Long.getLong("bank.reconcile.minAgeSec", 300L),
+                Long.getLong("bank.reconcile.periodSec", 600L),
+                Integer.getInteger("bank.reconcile.page", 500),
+                OpeningPolicy.valueOf(System.getProperty("bank.reconcile.opening", "keep").toUpperCase(Locale.ROOT))
+        );
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /** First sweep right away, then every periodSec, on a daemon thread. */
+    public void start() {
+        thread = new Thread(this::runLoop, "ledger-reconciler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void runLoop() {
+        do {
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+            if (periodMs == 0) return;
+            try {
+                Thread.sleep(periodMs);
+            } catch (InterruptedException e) {
+                return; // close()
+            }
+        } while (running);
+    }
+
+    /** Reconcile every PENDING row older than minAgeSec, page by page (one commit per page). */
+    public Report sweep() {
+        Timestamp cutoff = new Timestamp(System.currentTimeMillis() - minAgeMs);
+        int done = 0, failed = 0, unresolved = 0;
+        int afterId = 0;
+
+        while (running) {
+            List<PendingLedgerRow> page = transactionDAO.findPendingBefore(cutoff, afterId, pageSize);
+            if (page == null || page.isEmpty()) break;
+            afterId = page.get(page.size() - 1).id();
+
+            // verdicts are computed from the database as it is now: rows fixed by an earlier page are DONE/FAILED already
+            Map<String, Verdict> verdicts = new HashMap<>();
+            Map<String, Double> openingByRef = new HashMap<>(); // inferred, saved with the statuses
+            Map<Integer, String> statusById = new LinkedHashMap<>();
+
+            for (PendingLedgerRow r : page) {
+                String status = statusFor(r, verdicts, openingByRef, cutoff);
+                if (status == null) {
+                    unresolved++;
+                    System.out.println("[Reconciler] ledger row #" + r.id() + " (" + r.type() + " " + r.amount()
+                            + ") cannot be matched against the balances, left PENDING");
+                } else {
+                    statusById.put(r.id(), status);
+                }
+            }
+
+            if (transactionDAO.markStatuses(statusById, openingByRef) < 0) break; // retried at the next sweep
+            int pageDone = 0;
+            for (String s : statusById.values()) {
+                if ("DONE".equals(s)) pageDone++;
+            }
+            int pageFailed = statusById.size() - pageDone;
+            done += pageDone;
+            failed += pageFailed;
+            if (!statusById.isEmpty()) publish(pageDone, pageFailed);
+
+            if (page.size() < pageSize) break;
+        }
+
+        if (done + failed + unresolved > 0) {
+            System.out.println("[Reconciler] PENDING rows: " + done + " DONE, " + failed + " FAILED, "
+                    + unresolved + " unresolved");
+        }
+        return new Report(done, failed, unresolved);
+    }
+
+    private void publish(int done, int failed) {
+        for (Listener l : listeners) {
+            try {
+                l.onReconciled(done, failed);
+            } catch (RuntimeException e) {
+                System.err.println("[Reconciler] listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // null = cannot decide
+    private String statusFor(PendingLedgerRow r, Map<String, Verdict> verdicts, Map<String, Double> openingByRef,
+                             Timestamp cutoff) {
+        Verdict from = (r.fromRef() == null) ? null
+                : verdicts.computeIfAbsent(r.fromRef(), ref -> verdict(ref, cutoff, openingByRef));
+        Verdict to = (r.toRef() == null) ? null
+                : verdicts.computeIfAbsent(r.toRef(), ref -> verdict(ref, cutoff, openingByRef));
+
+        if (from == Verdict.MISSING || to == Verdict.MISSING) return "FAILED";
+        if (from == Verdict.UNKNOWN || to == Verdict.UNKNOWN) return null;
+        if (from != null && to != null && from != to) return null;
+
+        Verdict v = (from != null) ? from : to;
+        if (v == null) return "FAILED"; // no account at all
+        return (v == Verdict.APPLIED) ? "DONE" : "FAILED";
+    }
+
+    private Verdict verdict(String accountRef, Timestamp cutoff, Map<String, Double> openingByRef) {
+        LedgerTotals t = transactionDAO.findLedgerTotals(accountRef, cutoff);
+        if (t == null) return Verdict.MISSING;
+        if (t.recentPending() > 0) return Verdict.UNKNOWN; // in flight: its balance may move any time
+
+        // balance updated but its DONE row not flushed yet would look like an applied PENDING row
+        try {
+            Thread.sleep(SETTLE_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Verdict.UNKNOWN;
+        }
+        if (!t.equals(transactionDAO.findLedgerTotals(accountRef, cutoff))) return Verdict.UNKNOWN;
+
+        long pending = Money.toCents(t.pendingNet());
+
+        if (t.opening() != null) {
+            long unexplained = Money.toCents(t.balance()) - Money.toCents(t.opening()) - Money.toCents(t.doneNet());
+            if (pending == 0) return Verdict.UNKNOWN; // both readings give the same balance
+            if (unexplained == pending) return Verdict.APPLIED;
+            if (unexplained == 0) return Verdict.NOT_APPLIED;
+            return Verdict.UNKNOWN; // a recorded opening that does not add up: really inconsistent
+        }
+
+        // no opening recorded: any difference could be the opening balance, only the policy can decide
+        if (openingPolicy == OpeningPolicy.KEEP) return Verdict.UNKNOWN;
+
+        long unexplained = Money.toCents(t.balance()) - Money.toCents(t.doneNet());
+        Verdict v = (openingPolicy == OpeningPolicy.DONE) ? Verdict.APPLIED : Verdict.NOT_APPLIED;
+        long inferred = (v == Verdict.APPLIED) ? unexplained - pending : unexplained;
+        openingByRef.put(accountRef, Money.toAmount(inferred));
+        System.out.println("[Reconciler] " + accountRef + ": no opening balance recorded, "
+                + Money.toAmount(unexplained) + " not explained by its DONE rows; policy "
+                + openingPolicy.name().toLowerCase(Locale.ROOT) + " -> opening " + Money.toAmount(inferred)
+                + ", PENDING rows " + (v == Verdict.APPLIED ? "applied" : "not applied"));
+        return v;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (thread != null) thread.interrupt();
+    }
+}
@@ -0,0 +1,12 @@
+package org.example.bank.dao;
+
+/**
+ * One row of the transactions (ledger) table, before insertion.
+ * createdAtMillis = 0 means "now" (database default).
+ */
+public record LedgerRow(String type, String fromRef, String toRef, double amount, String status, long createdAtMillis) {
+
+    public LedgerRow(String type, String fromRef, String toRef, double amount, String status) {
+        this(type, fromRef, toRef, amount, status, 0);
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.bank.dao;
+
+/**
+ * One account against its ledger: stored balance, opening balance (what it held before its first
+ * ledger row, null if unknown), net of its DONE rows and of its PENDING rows (credits positive,
+ * debits negative), and how many PENDING rows are too recent to judge.
+ */
+public record LedgerTotals(double balance, Double opening, double doneNet, double pendingNet, int recentPending) {
+}
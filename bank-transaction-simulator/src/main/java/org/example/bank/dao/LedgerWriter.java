@@ -0,0 +1,260 @@
+package org.example.bank.dao;
+
+import org.example.bank.DBConnection;
+import org.example.bank.PooledConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit writer for the transactions (ledger) table.
+ *
+ * Engine threads enqueue rows and get a future; one flusher thread writes them with
+ * addBatch/executeBatch and commits once every {@code maxBatch} rows or {@code maxDelayMs} ms.
+ * A row may carry the balance change it describes: both are in the same commit, never one without the other.
+ * The future completes with the generated ledger id once the row is durable.
+ *
+ * A failed batch is rolled back as a whole and retried (backoff up to 5 s) rather than dropped;
+ * meanwhile new rows queue up behind it. Rows the database refuses (constraint / data errors,
+ * unknown account) are retried one by one and only those fail.
+ * close() drains the queue; at that point a batch still failing gets bank.ledger.closeRetries
+ * more attempts (default 5), then its futures fail and the rows are reported on stderr.
+ *
+ * Tuning (JVM system properties):
+ *   bank.ledger.batch    rows per commit           (default 64)
+ *   bank.ledger.flushMs  max wait before a commit  (default 5)
+ */
+public class LedgerWriter implements AutoCloseable {
+
+    private static final String MOVE_SQL = "UPDATE accounts SET balance = ROUND(balance + ?, 2) WHERE id = ?";
+
+    private static final String INSERT_SQL = """
+        INSERT INTO transactions
+        (type, from_account_ref, to_account_ref, amount, status)
+        VALUES (?, ?, ?, ?, ?)
+        """;
+
+    private static final long MAX_BACKOFF_MS = 5000;
+    private static final int CLOSE_RETRIES = Integer.getInteger("bank.ledger.closeRetries", 5);
+
+    private static final class Holder {
+        static final LedgerWriter SHARED = new LedgerWriter(
+                Integer.getInteger("bank.ledger.batch", 64),
+                Long.getLong("bank.ledger.flushMs", 5L)
+        );
+    }
+
+    public static LedgerWriter shared() {
+        return Holder.SHARED;
+    }
+
+    private static final class Entry {
+        final int accountId; // balance change, none if delta == 0
+        final double delta;
+        final String type;
+        final String fromRef;
+        final String toRef;
+        final double amount;
+        final String status;
+        final CompletableFuture<Integer> durable = new CompletableFuture<>();
+
+        Entry(int accountId, double delta, String type, String fromRef, String toRef, double amount, String status) {
+            this.accountId = accountId;
+            this.delta = delta;
+            this.type = type;
+            this.fromRef = fromRef;
+            this.toRef = toRef;
+            this.amount = amount;
+            this.status = status;
+        }
+    }
+
+    private final BlockingQueue<Entry> queue = new LinkedBlockingQueue<>();
+    private final int maxBatch;
+    private final long maxDelayMs;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public LedgerWriter(int maxBatch, long maxDelayMs) {
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxDelayMs = Math.max(0, maxDelayMs);
+
+        this.flusher = new Thread(this::runLoop, "ledger-flusher");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    /**
+     * Queue a ledger row. The future completes with its id once committed
+     * (or exceptionally if the batch could not be written).
+     */
+    public CompletableFuture<Integer> append(String type, String fromRef, String toRef,
+                                             double amount, String status) {
+        return append(-1, 0, type, fromRef, toRef, amount, status);
+    }
+
+    /**
+     * Same, with the balance change of {@code accountId} committed together with the row
+     * (exceptionally: neither was written).
+     */
+    public CompletableFuture<Integer> append(int accountId, double delta, String type, String fromRef, String toRef,
+                                             double amount, String status) {
+        Entry e = new Entry(accountId, delta, type, fromRef, toRef, amount, status);
+        if (running) {
+            queue.add(e);
+            // closed in between: the flusher may already have drained the queue and stopped.
+            // If the entry is still there nobody will write it (if it is gone, the flusher took it)
+            if (running || !queue.remove(e)) return e.durable;
+        }
+        e.durable.completeExceptionally(new IllegalStateException("LedgerWriter is closed"));
+        return e.durable;
+    }
+
+    public int pendingCount() {
+        return queue.size();
+    }
+
+    private void runLoop() {
+        List<Entry> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Entry first = queue.poll(200, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+
+                // group: wait a little for other threads to join this commit
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxDelayMs);
+                while (batch.size() < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    Entry next = (left > 0) ? queue.poll(left, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // not used by close() (it would break the JDBC calls): just write what we have
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    // returns once every entry of the batch is committed or definitively failed
+    private void write(List<Entry> batch) {
+        long backoffMs = 50;
+        int attemptsAfterClose = 0;
+        while (true) {
+            Exception error = flush(batch);
+            if (error == null) return;
+
+            if (rejectedRows(error)) {
+                if (batch.size() == 1) {
+                    System.err.println("[LedgerWriter] row rejected by the database: " + error.getMessage());
+                    batch.get(0).durable.completeExceptionally(error);
+                } else {
+                    // find the bad row(s), the others still go in
+                    for (Entry e : batch) write(List.of(e));
+                }
+                return;
+            }
+
+            if (!running && ++attemptsAfterClose > CLOSE_RETRIES) {
+                System.err.println("[LedgerWriter] shutdown: " + batch.size() + " ledger rows NOT written: " + error.getMessage());
+                for (Entry e : batch) e.durable.completeExceptionally(error);
+                return;
+            }
+
+            System.err.println("[LedgerWriter] batch of " + batch.size() + " failed, retry in " + backoffMs + " ms: " + error.getMessage());
+            try {
+                Thread.sleep(backoffMs);
+            } catch (InterruptedException ignored) {
+                // retry now
+            }
+            backoffMs = Math.min(backoffMs * 2, MAX_BACKOFF_MS);
+        }
+    }
+
+    // the data itself is refused: retrying the same rows cannot succeed
+    private static boolean rejectedRows(Throwable error) {
+        for (Throwable t = error; t != null; t = t.getCause()) {
+            if (t instanceof SQLIntegrityConstraintViolationException || t instanceof SQLDataException) return true;
+            // batch errors may be chained instead of set as cause (BatchUpdateException)
+            if (t instanceof SQLException sql && sql.getNextException() != null && rejectedRows(sql.getNextException())) return true;
+        }
+        return false;
+    }
+
+    /** @return null once committed (futures completed), or the error (everything rolled back) */
+    private Exception flush(List<Entry> batch) {
+        List<Integer> ids = new ArrayList<>(batch.size());
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            PreparedStatement move = null;
+            for (Entry e : batch) {
+                if (e.delta == 0) continue;
+                if (move == null) move = conn.cachedStatement(MOVE_SQL);
+                move.setDouble(1, e.delta);
+                move.setInt(2, e.accountId);
+                move.addBatch();
+            }
+            if (move != null) {
+                for (int n : move.executeBatch()) {
+                    // refused like a constraint violation: split, only that row fails
+                    if (n == 0) throw new SQLDataException("balance change for an unknown account");
+                }
+            }
+
+            PreparedStatement stmt = conn.cachedStatement(INSERT_SQL, PreparedStatement.RETURN_GENERATED_KEYS);
+            for (Entry e : batch) {
+                stmt.setString(1, e.type);
+                stmt.setString(2, e.fromRef);
+                stmt.setString(3, e.toRef);
+                stmt.setDouble(4, e.amount);
+                stmt.setString(5, e.status);
+                stmt.addBatch();
+            }
+            stmt.executeBatch();
+
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                while (keys.next()) ids.add(keys.getInt(1));
+            }
+
+            conn.commit();
+            // committed: never retried from here on (auto-commit is restored by the pool)
+        } catch (Exception ex) {
+            // uncommitted work is rolled back when the connection goes back to the pool
+            return ex;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).durable.complete(i < ids.size() ? ids.get(i) : -1);
+        }
+        return null;
+    }
+
+    /** Stop accepting rows and return once everything already queued is written (or has failed, see above). */
+    @Override
+    public void close() {
+        running = false;
+        boolean interrupted = false;
+        while (flusher.isAlive()) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                interrupted = true; // the rows must still go out
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
+    }
+}
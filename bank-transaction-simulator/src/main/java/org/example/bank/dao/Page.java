@@ -0,0 +1,14 @@
+package org.example.bank.dao;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated query.
+ * nextToken is passed back to get the following page; null on the last page.
+ */
+public record Page<T>(List<T> items, String nextToken) {
+
+    public boolean hasMore() {
+        return nextToken != null;
+    }
+}
@@ -0,0 +1,5 @@
+package org.example.bank.dao;
+
+/** A ledger row still PENDING, as seen by the reconciler. */
+public record PendingLedgerRow(int id, String type, String fromRef, String toRef, double amount) {
+}
@@ -0,0 +1,76 @@
+package org.example.bank.dao;
+
+import org.example.bank.DBConnection;
+import org.example.bank.PooledConnection;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Query results as a lazy Stream: rows are read from a forward-only, read-only cursor
+ * {@code bank.db.fetchSize} at a time (default 500, needs useCursorFetch, see DBConnection),
+ * so the heap does not grow with the table.
+ *
+ * The connection stays borrowed until the stream is closed: always use try-with-resources.
+ * SQL errors surface as IllegalStateException.
+ */
+final class RowStreams {
+
+    static final int FETCH_SIZE = Math.max(1, Integer.getInteger("bank.db.fetchSize", 500));
+
+    interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    private RowStreams() {
+    }
+
+    static <T> Stream<T> stream(String sql, RowMapper<T> mapper, Object... params) {
+        PooledConnection conn = null;
+        ResultSet rs;
+        try {
+            conn = DBConnection.getConnection();
+            // cached statements use the default TYPE_FORWARD_ONLY / CONCUR_READ_ONLY
+            PreparedStatement stmt = conn.cachedStatement(sql);
+            stmt.setFetchSize(FETCH_SIZE);
+            for (int i = 0; i < params.length; i++) {
+                stmt.setObject(i + 1, params[i]);
+            }
+            rs = stmt.executeQuery();
+        } catch (SQLException e) {
+            if (conn != null) conn.close();
+            throw new IllegalStateException("Query failed: " + e.getMessage(), e);
+        }
+
+        ResultSet cursor = rs;
+        PooledConnection borrowed = conn;
+        Spliterator<T> rows = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                try {
+                    if (!cursor.next()) return false;
+                    action.accept(mapper.map(cursor));
+                    return true;
+                } catch (SQLException e) {
+                    throw new IllegalStateException("Reading rows failed: " + e.getMessage(), e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(rows, false).onClose(() -> {
+            try {
+                cursor.close();
+            } catch (SQLException ignored) {
+            } finally {
+                borrowed.close(); // back to the pool
+            }
+        });
+    }
+}
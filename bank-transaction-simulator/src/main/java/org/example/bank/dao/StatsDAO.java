@@ -0,0 +1,87 @@
+package org.example.bank.dao;
+
+import org.example.bank.DBConnection;
+import org.example.bank.PooledConnection;
+import org.example.bank.storage.StatsStore;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Admin dashboard aggregates, computed with GROUP BY / SUM in the database:
+ * only a few dozen rows come back, whatever the size of the ledger.
+ */
+public class StatsDAO implements StatsStore {
+
+    // every figure in ONE query (one round trip): kind | label | n | cents.
+    // CONCAT(enum, ''): label stays a string column (H2 would give it the ENUM type of the first one)
+    private static final String SQL = """
+        SELECT 'USERS' AS kind, NULL AS label, COUNT(*) AS n, 0 AS cents FROM users
+        UNION ALL
+        SELECT 'ACCOUNTS', NULL, COUNT(*), COALESCE(SUM(ROUND(balance * 100)), 0) FROM accounts
+        UNION ALL
+        SELECT 'TYPE', CONCAT(type, ''), COUNT(*), 0 FROM transactions GROUP BY type
+        UNION ALL
+        SELECT 'STATUS', CONCAT(COALESCE(status, 'PENDING'), ''), COUNT(*), 0 FROM transactions GROUP BY COALESCE(status, 'PENDING')
+        UNION ALL
+        SELECT * FROM (
+            SELECT 'TOP', CONCAT(u.id, ':', u.username), COUNT(a.id), SUM(ROUND(a.balance * 100)) AS cents
+            FROM accounts a JOIN users u ON u.id = a.user_id
+            GROUP BY u.id, u.username
+            ORDER BY cents DESC
+            LIMIT ?
+        ) top
+        """;
+
+    /** @return null if the query failed */
+    public DashboardStats load(int topClients) {
+
+        long users = 0, accounts = 0, balanceCents = 0;
+        Map<String, Long> byType = new LinkedHashMap<>();
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        List<DashboardStats.TopClient> top = new ArrayList<>();
+
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(SQL);
+            stmt.setInt(1, topClients);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    String label = rs.getString("label");
+                    long n = rs.getLong("n");
+                    long cents = rs.getLong("cents");
+
+                    switch (rs.getString("kind")) {
+                        case "USERS" -> users = n;
+                        case "ACCOUNTS" -> {
+                            accounts = n;
+                            balanceCents = cents;
+                        }
+                        case "TYPE" -> byType.put(label, n);
+                        case "STATUS" -> byStatus.put(label, n);
+                        case "TOP" -> {
+                            int sep = label.indexOf(':');
+                            top.add(new DashboardStats.TopClient(
+                                    Integer.parseInt(label.substring(0, sep)), label.substring(sep + 1), cents, n));
+                        }
+                        default -> { }
+                    }
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+
+        // UNION ALL does not keep the inner ORDER BY
+        top.sort(Comparator.comparingLong(DashboardStats.TopClient::balanceCents).reversed());
+
+        long transactions = byType.values().stream().mapToLong(Long::longValue).sum();
+        return new DashboardStats(users, accounts, balanceCents, transactions, byType, byStatus, top);
+    }
+}
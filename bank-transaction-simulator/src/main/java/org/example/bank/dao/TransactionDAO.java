@@ -1,14 +1,24 @@
 package org.example.bank.dao;
 
 import org.example.bank.DBConnection;
+import org.example.bank.PooledConnection;
+import org.example.bank.model.Money;
+import org.example.bank.model.TransactionRecord;
+import org.example.bank.storage.TransactionStore;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
-public class TransactionDAO {
+public class TransactionDAO implements TransactionStore {
 
     public void logDeposit(String toRef, double amount) {
         log("DEPOSIT", null, toRef, amount);
@@ -26,27 +36,37 @@ public class TransactionDAO {
                    String fromRef,
                    String toRef,
                    double amount) {
+        return log(type, fromRef, toRef, amount, "PENDING");
+    }
+
+    // ✅ Insert directly with the final status (no PENDING + UPDATE round trip)
+    public int log(String type,
+                   String fromRef,
+                   String toRef,
+                   double amount,
+                   String status) {
 
         String sql = """
         INSERT INTO transactions
         (type, from_account_ref, to_account_ref, amount, status)
-        VALUES (?, ?, ?, ?, 'PENDING')
+        VALUES (?, ?, ?, ?, ?)
         """;
 
-        try {
-            Connection conn = DBConnection.getConnection();
+        try (PooledConnection conn = DBConnection.getConnection()) {
             PreparedStatement stmt =
-                    conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
+                    conn.cachedStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
 
             stmt.setString(1, type);
             stmt.setString(2, fromRef);
             stmt.setString(3, toRef);
             stmt.setDouble(4, amount);
+            stmt.setString(5, status);
 
             stmt.executeUpdate();
 
-            ResultSet rs = stmt.getGeneratedKeys();
-            if (rs.next()) return rs.getInt(1);
+            try (ResultSet rs = stmt.getGeneratedKeys()) {
+                if (rs.next()) return rs.getInt(1);
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -55,82 +75,472 @@ public class TransactionDAO {
         return -1;
     }
 
-    public List<String> findHistoryByAccountRef(String accountRef) {
+    // ✅ Group commit: row is batched with other threads' rows, future = ledger id once durable
+    public CompletableFuture<Integer> logAsync(String type,
+                                               String fromRef,
+                                               String toRef,
+                                               double amount,
+                                               String status) {
+        return LedgerWriter.shared().append(type, fromRef, toRef, amount, status);
+    }
+
+    public CompletableFuture<Integer> applyAndLogAsync(int accountId, double delta,
+                                                       String type, String fromRef, String toRef, double amount) {
+        return LedgerWriter.shared().append(accountId, delta, type, fromRef, toRef, amount, "DONE");
+    }
 
-        List<String> history = new ArrayList<>();
+    /**
+     * Transfer in ONE JDBC transaction: debit + credit (single multi-row UPDATE)
+     * and the ledger row (inserted directly as DONE), then a single commit.
+     *
+     * @return the ledger id (ID_UNKNOWN if committed but no key came back),
+     *         or -1 if nothing was committed (insufficient funds or error)
+     */
+    public int executeTransfer(int fromId, String fromRef,
+                               int toId, String toRef,
+                               double amount) {
 
-        String sql = """
-        SELECT type, from_account_ref, to_account_ref, amount, status, created_at
-        FROM transactions
-        WHERE from_account_ref = ? OR to_account_ref = ?
-        ORDER BY created_at DESC
+        String move = """
+        UPDATE accounts
+        SET balance = ROUND(balance + CASE WHEN id = ? THEN -? ELSE ? END, 2)
+        WHERE id IN (?, ?) AND (id <> ? OR balance >= ?)
         """;
 
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            stmt.setString(1, accountRef);
-            stmt.setString(2, accountRef);
+        String insert = """
+        INSERT INTO transactions
+        (type, from_account_ref, to_account_ref, amount, status)
+        VALUES ('TRANSFER', ?, ?, ?, 'DONE')
+        """;
+
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
 
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                history.add(
-                        rs.getString("created_at") + " | "
-                                + rs.getString("type") + " | "
-                                + rs.getString("from_account_ref") + " -> "
-                                + rs.getString("to_account_ref") + " | "
-                                + rs.getDouble("amount") + " | "
-                                + rs.getString("status")
-                );
+            PreparedStatement stMove = conn.cachedStatement(move);
+            stMove.setInt(1, fromId);
+            stMove.setDouble(2, amount);
+            stMove.setDouble(3, amount);
+            stMove.setInt(4, fromId);
+            stMove.setInt(5, toId);
+            stMove.setInt(6, fromId);
+            stMove.setDouble(7, amount);
+
+            // both rows must move, otherwise the debit guard refused it
+            if (stMove.executeUpdate() != 2) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+                return -1;
+            }
+
+            PreparedStatement stInsert = conn.cachedStatement(insert, PreparedStatement.RETURN_GENERATED_KEYS);
+            stInsert.setString(1, fromRef);
+            stInsert.setString(2, toRef);
+            stInsert.setDouble(3, amount);
+            stInsert.executeUpdate();
+
+            int txId = ID_UNKNOWN;
+            try (ResultSet keys = stInsert.getGeneratedKeys()) {
+                if (keys.next()) txId = keys.getInt(1);
             }
 
+            conn.commit();
+            // committed: the money moved, -1 would make the caller refund it in memory.
+            // auto-commit is restored by the pool (DBConnection.release)
+            return txId;
+
         } catch (Exception e) {
+            // uncommitted work is rolled back when the connection goes back to the pool
             e.printStackTrace();
         }
+        return -1;
+    }
+
+    /**
+     * Coalesced deposits/withdrawals of ONE account: the net balance change
+     * and all their ledger rows (DONE and FAILED) in a single commit.
+     *
+     * @return the ledger ids in row order, or null if nothing was written
+     */
+    public int[] applyNetAndLog(int accountId, double netDelta, List<LedgerRow> rows) {
 
-        return history;
+        String move = "UPDATE accounts SET balance = ROUND(balance + ?, 2) WHERE id = ?";
+
+        String insert = """
+        INSERT INTO transactions
+        (type, from_account_ref, to_account_ref, amount, status)
+        VALUES (?, ?, ?, ?, ?)
+        """;
+
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            if (netDelta != 0) {
+                PreparedStatement stMove = conn.cachedStatement(move);
+                stMove.setDouble(1, netDelta);
+                stMove.setInt(2, accountId);
+                if (stMove.executeUpdate() != 1) {
+                    conn.rollback();
+                    conn.setAutoCommit(true);
+                    return null;
+                }
+            }
+
+            PreparedStatement stInsert = conn.cachedStatement(insert, PreparedStatement.RETURN_GENERATED_KEYS);
+            for (LedgerRow r : rows) {
+                stInsert.setString(1, r.type());
+                stInsert.setString(2, r.fromRef());
+                stInsert.setString(3, r.toRef());
+                stInsert.setDouble(4, r.amount());
+                stInsert.setString(5, r.status());
+                stInsert.addBatch();
+            }
+            stInsert.executeBatch();
+
+            int[] ids = new int[rows.size()];
+            Arrays.fill(ids, -1);
+            try (ResultSet keys = stInsert.getGeneratedKeys()) {
+                for (int k = 0; k < ids.length && keys.next(); k++) ids[k] = keys.getInt(1);
+            }
+
+            conn.commit();
+            conn.setAutoCommit(true);
+            return ids;
+
+        } catch (Exception e) {
+            // uncommitted work is rolled back when the connection goes back to the pool
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    // ================= WAL CHECKPOINT =================
+
+    /**
+     * Position of the last WAL record applied to the database: 0 if none (the table comes from schema version 4),
+     * -1 if it could not be read.
+     */
+    public long findWalCheckpoint() {
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            try (ResultSet rs = conn.cachedStatement("SELECT wal_position FROM wal_checkpoint WHERE id = 1").executeQuery()) {
+                if (rs.next()) return rs.getLong(1);
+            }
+
+            conn.cachedStatement("INSERT INTO wal_checkpoint (id, wal_position) VALUES (1, 0)").executeUpdate();
+            return 0;
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return -1;
     }
 
-    // ✅ Admin: all transactions (same format as history)
-    public List<String> findAllHistoryLines() {
+    /**
+     * WAL checkpoint in ONE JDBC transaction: balance deltas, ledger rows and the new WAL position.
+     * Replaying the same WAL range twice is impossible: the position moves in the same commit.
+     */
+    public boolean applyWalCheckpoint(Map<Integer, Double> balanceDeltas, List<LedgerRow> rows, long walPosition) {
+
+        String move = "UPDATE accounts SET balance = ROUND(balance + ?, 2) WHERE id = ?";
+
+        String insert = """
+        INSERT INTO transactions
+        (type, from_account_ref, to_account_ref, amount, status, created_at)
+        VALUES (?, ?, ?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP))
+        """;
+
+        String position = "UPDATE wal_checkpoint SET wal_position = ? WHERE id = 1";
 
-        List<String> history = new ArrayList<>();
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            PreparedStatement stMove = conn.cachedStatement(move);
+            for (Map.Entry<Integer, Double> d : balanceDeltas.entrySet()) {
+                stMove.setDouble(1, d.getValue());
+                stMove.setInt(2, d.getKey());
+                stMove.addBatch();
+            }
+            stMove.executeBatch();
+
+            PreparedStatement stInsert = conn.cachedStatement(insert);
+            for (LedgerRow r : rows) {
+                stInsert.setString(1, r.type());
+                stInsert.setString(2, r.fromRef());
+                stInsert.setString(3, r.toRef());
+                stInsert.setDouble(4, r.amount());
+                stInsert.setString(5, r.status());
+                if (r.createdAtMillis() > 0) stInsert.setTimestamp(6, new Timestamp(r.createdAtMillis()));
+                else stInsert.setNull(6, Types.TIMESTAMP);
+                stInsert.addBatch();
+            }
+            stInsert.executeBatch();
+
+            PreparedStatement stPosition = conn.cachedStatement(position);
+            stPosition.setLong(1, walPosition);
+            stPosition.executeUpdate();
+
+            conn.commit();
+            conn.setAutoCommit(true);
+            return true;
+
+        } catch (Exception e) {
+            // uncommitted work is rolled back when the connection goes back to the pool
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    // ================= PENDING RECONCILIATION =================
+
+    /**
+     * One page of PENDING rows created before {@code cutoff}, in id order after {@code afterId}
+     * (keyset pagination, no OFFSET scan). The (status, id) index walks the PENDING rows in id order
+     * from afterId; the few newer than the cutoff (in flight) are read and skipped.
+     */
+    public List<PendingLedgerRow> findPendingBefore(Timestamp cutoff, int afterId, int limit) {
+
+        List<PendingLedgerRow> rows = new ArrayList<>();
 
         String sql = """
-        SELECT type, from_account_ref, to_account_ref, amount, status, created_at
+        SELECT id, type, from_account_ref, to_account_ref, amount
         FROM transactions
-        ORDER BY created_at DESC
+        WHERE status = 'PENDING' AND id > ? AND created_at < ?
+        ORDER BY id
+        LIMIT ?
+        """;
+
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
+            stmt.setInt(1, afterId);
+            stmt.setTimestamp(2, cutoff);
+            stmt.setInt(3, limit);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new PendingLedgerRow(
+                            rs.getInt("id"),
+                            rs.getString("type"),
+                            rs.getString("from_account_ref"),
+                            rs.getString("to_account_ref"),
+                            rs.getDouble("amount")
+                    ));
+                }
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+        return rows;
+    }
+
+    /**
+     * Balance of an account next to the net of its DONE and PENDING ledger rows.
+     * PENDING rows created at or after {@code cutoff} are counted in recentPending.
+     * @return null if the account does not exist
+     * @throws IllegalStateException if the query failed (a missing account and an error must not look alike)
+     */
+    public LedgerTotals findLedgerTotals(String accountRef, Timestamp cutoff) {
+
+        String sql = """
+        SELECT a.balance, a.opening_balance,
+               COALESCE(SUM(CASE WHEN t.status = 'DONE' THEN t.delta END), 0) AS done_net,
+               COALESCE(SUM(CASE WHEN t.status = 'PENDING' THEN t.delta END), 0) AS pending_net,
+               COALESCE(SUM(CASE WHEN t.status = 'PENDING' AND t.created_at >= ? THEN 1 END), 0) AS recent
+        FROM accounts a
+        LEFT JOIN (
+            SELECT to_account_ref AS ref, amount AS delta, status, created_at
+            FROM transactions WHERE to_account_ref = ?
+            UNION ALL
+            SELECT from_account_ref, -amount, status, created_at
+            FROM transactions WHERE from_account_ref = ?
+        ) t ON t.ref = a.account_ref
+        WHERE a.account_ref = ?
+        GROUP BY a.balance, a.opening_balance
         """;
 
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                history.add(
-                        rs.getString("created_at") + " | "
-                                + rs.getString("type") + " | "
-                                + rs.getString("from_account_ref") + " -> "
-                                + rs.getString("to_account_ref") + " | "
-                                + rs.getDouble("amount") + " | "
-                                + rs.getString("status")
-                );
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
+            stmt.setTimestamp(1, cutoff);
+            stmt.setString(2, accountRef);
+            stmt.setString(3, accountRef);
+            stmt.setString(4, accountRef);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    double opening = rs.getDouble("opening_balance");
+                    Double known = rs.wasNull() ? null : opening; // NULL = unknown, not 0
+                    return new LedgerTotals(
+                            rs.getDouble("balance"),
+                            known,
+                            rs.getDouble("done_net"),
+                            rs.getDouble("pending_net"),
+                            rs.getInt("recent")
+                    );
+                }
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Ledger totals of " + accountRef + " not readable", e);
+        }
+        return null;
+    }
+
+    /**
+     * New status for a set of PENDING rows, and the opening balances the reconciler
+     * inferred for their accounts, batched in one commit.
+     * Rows that are no longer PENDING are left alone.
+     * @return rows updated, or -1 on error (nothing changed)
+     */
+    public int markStatuses(Map<Integer, String> statusById, Map<String, Double> openingByRef) {
+        if (statusById.isEmpty() && openingByRef.isEmpty()) return 0;
+
+        String sql = "UPDATE transactions SET status = ? WHERE id = ? AND status = 'PENDING'";
+        String opening = "UPDATE accounts SET opening_balance = ? WHERE account_ref = ?";
+
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            conn.setAutoCommit(false);
+
+            if (!openingByRef.isEmpty()) {
+                PreparedStatement stOpening = conn.cachedStatement(opening);
+                for (Map.Entry<String, Double> e : openingByRef.entrySet()) {
+                    stOpening.setDouble(1, e.getValue());
+                    stOpening.setString(2, e.getKey());
+                    stOpening.addBatch();
+                }
+                stOpening.executeBatch();
+            }
+
+            PreparedStatement stmt = conn.cachedStatement(sql);
+            for (Map.Entry<Integer, String> e : statusById.entrySet()) {
+                stmt.setString(1, e.getValue());
+                stmt.setInt(2, e.getKey());
+                stmt.addBatch();
+            }
+
+            int updated = 0;
+            for (int n : stmt.executeBatch()) if (n > 0) updated += n;
+
+            conn.commit();
+            conn.setAutoCommit(true);
+            return updated;
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return -1;
+    }
+
+    // ================= HISTORY (keyset pagination) =================
+    // newest first, seek on (created_at, id): a page costs the same at row 10 and at row 10 million
+
+    private static final String HISTORY_COLUMNS = "id, type, from_account_ref, to_account_ref, amount, status, created_at";
+    private static final String HISTORY_SEEK = " AND (created_at < ? OR (created_at = ? AND id < ?))";
+    private static final String HISTORY_ORDER = " ORDER BY created_at DESC, id DESC LIMIT ?";
+
+    /**
+     * One account: UNION ALL of the received and the sent rows instead of "from = ? OR to = ?",
+     * so each side is a backward range scan of its (ref, created_at) index that stops after limit + 1 rows.
+     * @param pageToken null for the first page, then Page.nextToken() of the previous one
+     */
+    public Page<TransactionRecord> findHistoryPage(String accountRef, String pageToken, int limit) {
+        String seek = (pageToken == null) ? "" : HISTORY_SEEK;
+        String sql = "SELECT * FROM ("
+                + "(SELECT " + HISTORY_COLUMNS + " FROM transactions WHERE to_account_ref = ?" + seek + HISTORY_ORDER + ")"
+                + " UNION ALL "
+                // a transfer to itself is already in the first half
+                + "(SELECT " + HISTORY_COLUMNS + " FROM transactions WHERE from_account_ref = ?"
+                + " AND (to_account_ref IS NULL OR to_account_ref <> ?)" + seek + HISTORY_ORDER + ")"
+                + ") h" + HISTORY_ORDER;
+
+        List<Object> params = new ArrayList<>();
+        params.add(accountRef);
+        addSeek(params, pageToken);
+        params.add(limit + 1);
+        params.add(accountRef);
+        params.add(accountRef);
+        addSeek(params, pageToken);
+        params.add(limit + 1);
+        params.add(limit + 1);
+
+        return historyPage(sql, params, limit);
+    }
+
+    /** Admin: every account, same order and token as findHistoryPage (created_at_id index). */
+    public Page<TransactionRecord> findAllHistoryPage(String pageToken, int limit) {
+        String sql = "SELECT " + HISTORY_COLUMNS + " FROM transactions WHERE 1 = 1"
+                + ((pageToken == null) ? "" : HISTORY_SEEK) + HISTORY_ORDER;
+
+        List<Object> params = new ArrayList<>();
+        addSeek(params, pageToken);
+        params.add(limit + 1);
+
+        return historyPage(sql, params, limit);
+    }
+
+    // token = "<created_at millis>:<id>" of the last row already shown
+    private static void addSeek(List<Object> params, String pageToken) {
+        if (pageToken == null) return;
+        String[] t = pageToken.split(":");
+        Timestamp at = new Timestamp(Long.parseLong(t[0]));
+        params.add(at);
+        params.add(at);
+        params.add(Integer.parseInt(t[1]));
+    }
+
+    // the query returns up to limit + 1 rows: one more row says whether there is a next page
+    private Page<TransactionRecord> historyPage(String sql, List<Object> params, int limit) {
+
+        List<TransactionRecord> records = new ArrayList<>();
+        String nextToken = null;
+
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
+            for (int i = 0; i < params.size(); i++) {
+                stmt.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    if (records.size() == limit) {
+                        TransactionRecord last = records.get(limit - 1);
+                        nextToken = last.createdAtMillis() + ":" + last.id();
+                        break;
+                    }
+                    records.add(record(rs));
+                }
             }
 
         } catch (Exception e) {
             e.printStackTrace();
         }
 
-        return history;
+        return new Page<>(records, nextToken);
+    }
+
+    /**
+     * The whole ledger in id order, read lazily (see RowStreams), for exports and checks
+     * over millions of rows. Close the stream.
+     * @param afterId 0 for everything, otherwise resume after this id
+     */
+    public Stream<TransactionRecord> streamLedger(int afterId) {
+        return RowStreams.stream("SELECT " + HISTORY_COLUMNS + " FROM transactions WHERE id > ? ORDER BY id",
+                TransactionDAO::record, afterId);
+    }
+
+    private static TransactionRecord record(ResultSet rs) throws SQLException {
+        String status = rs.getString("status");
+        return new TransactionRecord(
+                rs.getInt("id"),
+                TransactionRecord.Type.valueOf(rs.getString("type")),
+                rs.getString("from_account_ref"),
+                rs.getString("to_account_ref"),
+                Money.toCents(rs.getDouble("amount")),
+                rs.getTimestamp("created_at").getTime(),
+                // nullable column, never left NULL by the application
+                (status == null) ? TransactionRecord.Status.PENDING : TransactionRecord.Status.valueOf(status)
+        );
     }
 
     public void markDone(int transactionId) {
         String sql = "UPDATE transactions SET status = 'DONE' WHERE id = ?";
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
             stmt.setInt(1, transactionId);
             stmt.executeUpdate();
         } catch (Exception e) {
@@ -140,9 +550,8 @@ public class TransactionDAO {
 
     public void markFailed(int transactionId) {
         String sql = "UPDATE transactions SET status = 'FAILED' WHERE id = ?";
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
             stmt.setInt(1, transactionId);
             stmt.executeUpdate();
         } catch (Exception e) {
@@ -1,16 +1,18 @@
 package org.example.bank.dao;
 
 import org.example.bank.DBConnection;
+import org.example.bank.PooledConnection;
 import org.example.bank.auth.Role;
 import org.example.bank.auth.User;
+import org.example.bank.storage.UserStore;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 
-public class UserDAO {
+public class UserDAO implements UserStore {
 
     public User findByCredentials(String username, String password) {
         String sql = """
@@ -18,19 +20,19 @@ public class UserDAO {
                 FROM users
                 WHERE username = ? AND password = ?
                 """;
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
             stmt.setString(1, username);
             stmt.setString(2, password);
 
-            ResultSet rs = stmt.executeQuery();
-            if (rs.next()) {
-                return new User(
-                        rs.getInt("id"),
-                        rs.getString("username"),
-                        Role.valueOf(rs.getString("role"))
-                );
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return new User(
+                            rs.getInt("id"),
+                            rs.getString("username"),
+                            Role.valueOf(rs.getString("role"))
+                    );
+                }
             }
         } catch (Exception e) {
             e.printStackTrace();
@@ -40,10 +42,8 @@ public class UserDAO {
 
     public long countUsers() {
         String sql = "SELECT COUNT(*) AS total FROM users";
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
+        try (PooledConnection conn = DBConnection.getConnection();
+             ResultSet rs = conn.cachedStatement(sql).executeQuery()) {
             if (rs.next()) return rs.getLong("total");
         } catch (Exception e) {
             e.printStackTrace();
@@ -54,10 +54,8 @@ public class UserDAO {
     public List<User> findAll() {
         List<User> list = new ArrayList<>();
         String sql = "SELECT id, username, role FROM users ORDER BY id DESC";
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
-            ResultSet rs = stmt.executeQuery();
+        try (PooledConnection conn = DBConnection.getConnection();
+             ResultSet rs = conn.cachedStatement(sql).executeQuery()) {
             while (rs.next()) {
                 list.add(new User(
                         rs.getInt("id"),
@@ -71,14 +69,20 @@ public class UserDAO {
         return list;
     }
 
+    /** Every user in id order, read lazily (see RowStreams). Close the stream. */
+    public Stream<User> streamAll() {
+        return RowStreams.stream("SELECT id, username, role FROM users ORDER BY id ASC",
+                rs -> new User(rs.getInt("id"), rs.getString("username"), Role.valueOf(rs.getString("role"))));
+    }
+
     public boolean usernameExists(String username) {
         String sql = "SELECT 1 FROM users WHERE username = ? LIMIT 1";
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql);
             stmt.setString(1, username);
-            ResultSet rs = stmt.executeQuery();
-            return rs.next();
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -96,9 +100,8 @@ public class UserDAO {
 
     private int createUserReturnId(String username, String password, Role role) {
         String sql = "INSERT INTO users (username, password, role) VALUES (?, ?, ?)";
-        try {
-            Connection conn = DBConnection.getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement stmt = conn.cachedStatement(sql, PreparedStatement.RETURN_GENERATED_KEYS);
             stmt.setString(1, username);
             stmt.setString(2, password);
             stmt.setString(3, role.name());
@@ -106,8 +109,9 @@ public class UserDAO {
             int rows = stmt.executeUpdate();
             if (rows <= 0) return -1;
 
-            ResultSet keys = stmt.getGeneratedKeys();
-            if (keys.next()) return keys.getInt(1);
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                if (keys.next()) return keys.getInt(1);
+            }
 
         } catch (Exception e) {
             e.printStackTrace();
@@ -117,9 +121,7 @@ public class UserDAO {
 
     // ✅ Delete user + accounts + transactions (safe even without FK cascade)
     public boolean deleteUserCascade(int userId) {
-        Connection conn = null;
-        try {
-            conn = DBConnection.getConnection();
+        try (PooledConnection conn = DBConnection.getConnection()) {
             conn.setAutoCommit(false);
 
             // 1) delete transactions linked to user accounts
@@ -156,15 +158,9 @@ public class UserDAO {
             return rows > 0;
 
         } catch (Exception e) {
+            // uncommitted work is rolled back when the connection goes back to the pool
             e.printStackTrace();
-            try {
-                if (conn != null) conn.rollback();
-            } catch (Exception ignored) {}
             return false;
-        } finally {
-            try {
-                if (conn != null) conn.setAutoCommit(true);
-            } catch (Exception ignored) {}
         }
     }
 }
\ No newline at end of file
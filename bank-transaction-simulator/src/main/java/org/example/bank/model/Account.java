@@ -1,22 +1,24 @@
 package org.example.bank.model;
 
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class Account {
 
+    /** Returned by tryDebit() when the funds are insufficient. */
+    public static final long INSUFFICIENT_FUNDS = -1;
+
     private int id;
     private int userId;
     private String accountRef;
-    private double balance;
 
-    // 🔐 Semaphore pour la concurrence (transactions parallèles)
-    private final Semaphore semaphore = new Semaphore(1, true);
+    // 🔐 Concurrence : solde en centimes, mis à jour par CAS (pas de verrou pour crédit / débit)
+    private final AtomicLong balanceCents;
 
     public Account(int id, int userId, String accountRef, double balance) {
         this.id = id;
         this.userId = userId;
         this.accountRef = accountRef;
-        this.balance = balance;
+        this.balanceCents = new AtomicLong(Money.toCents(balance));
     }
 
     // ---------- GETTERS ----------
@@ -32,28 +34,48 @@ public class Account {
         return accountRef;
     }
 
+    public long getBalanceCents() {
+        return balanceCents.get();
+    }
+
     public double getBalance() {
-        return balance;
+        return Money.toAmount(balanceCents.get());
     }
 
-    public Semaphore getSemaphore() {
-        return semaphore;
+    // ---------- ATOMIC UPDATES ----------
+
+    /** Adds {@code cents} (may be negative: used to undo a debit). Returns the new balance. */
+    public long credit(long cents) {
+        return balanceCents.addAndGet(cents);
+    }
+
+    /**
+     * Conditional debit: succeeds only if the balance stays >= 0, never goes negative.
+     * Returns the new balance, or INSUFFICIENT_FUNDS (nothing changed).
+     */
+    public long tryDebit(long cents) {
+        while (true) {
+            long current = balanceCents.get();
+            long next = current - cents;
+            if (next < 0) return INSUFFICIENT_FUNDS;
+            if (balanceCents.compareAndSet(current, next)) return next;
+        }
     }
 
     // ---------- SETTERS ----------
     public void setBalance(double balance) {
-        this.balance = balance;
+        balanceCents.set(Money.toCents(balance));
     }
 
-    // ✅ utilisé par Deposit / Withdraw
+    // ✅ compatibilité : ajoute un montant (DH)
     public void updateBalance(double amount) {
-        this.balance += amount;
+        credit(Money.toCents(amount));
     }
 
-    // ✅ compatibilité avec anciens appels (TransferTransaction)
+    // ✅ compatibilité avec anciens appels
     public void updateBalance(int accountId, double newBalance) {
         if (this.id == accountId) {
-            this.balance = newBalance;
+            setBalance(newBalance);
         }
     }
 }
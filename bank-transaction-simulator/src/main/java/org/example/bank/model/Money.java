@@ -0,0 +1,23 @@
+package org.example.bank.model;
+
+/**
+ * Amounts are handled as long cents (minor units) in memory: no floating-point drift in balances or totals.
+ * The database and the UI still use DH with 2 decimals.
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    public static long toCents(double amount) {
+        return Math.round(amount * 100.0);
+    }
+
+    public static double toAmount(long cents) {
+        return cents / 100.0;
+    }
+
+    public static String format(long cents) {
+        return String.format("%.2f DH", toAmount(cents));
+    }
+}
@@ -0,0 +1,17 @@
+package org.example.bank.model;
+
+/**
+ * One row of the transactions (ledger) table, as read back for history screens.
+ * fromRef / toRef are null when not applicable (deposit source, withdrawal target).
+ */
+public record TransactionRecord(int id, Type type, String fromRef, String toRef,
+                                long amountCents, long createdAtMillis, Status status) {
+
+    public enum Type { DEPOSIT, WITHDRAW, TRANSFER }
+
+    public enum Status { PENDING, DONE, FAILED }
+
+    public double amount() {
+        return Money.toAmount(amountCents);
+    }
+}
@@ -0,0 +1,206 @@
+package org.example.bank.stats;
+
+import org.example.bank.concurrency.TransactionListener;
+import org.example.bank.dao.AccountRepository;
+import org.example.bank.dao.DashboardStats;
+import org.example.bank.dao.LedgerReconciler;
+import org.example.bank.model.Account;
+import org.example.bank.storage.StatsStore;
+import org.example.bank.storage.Storage;
+import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admin dashboard figures kept up to date in memory.
+ *
+ * Seeded once with StatsStore.load (one aggregate query), then maintained from BankEngine completion
+ * events, LedgerReconciler status changes and the user/account screens. Counters are LongAdders: engine threads update them
+ * without contention, snapshot() only sums them (no database access).
+ */
+public class LiveStats implements TransactionListener, LedgerReconciler.Listener {
+
+    private static final class Holder {
+        static final LiveStats SHARED = new LiveStats(Storage.shared().stats(), AccountRepository.shared());
+    }
+
+    public static LiveStats shared() {
+        return Holder.SHARED;
+    }
+
+    private static final class Client {
+        volatile String username;
+        final LongAdder balanceCents = new LongAdder();
+        final LongAdder accounts = new LongAdder();
+
+        Client(String username) {
+            this.username = username;
+        }
+    }
+
+    private final StatsStore statsDAO;
+    private final AccountRepository accountRepository;
+
+    private final LongAdder users = new LongAdder();
+    private final LongAdder accounts = new LongAdder();
+    private final LongAdder balanceCents = new LongAdder();
+    private final LongAdder transactions = new LongAdder();
+    private final Map<String, LongAdder> byType = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+    private final Map<Integer, Client> clients = new ConcurrentHashMap<>();
+
+    private volatile boolean seeded;
+
+    public LiveStats(StatsStore statsDAO, AccountRepository accountRepository) {
+        this.statsDAO = statsDAO;
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * Load the starting values (every client, not only the top N). Events are ignored until then.
+     * @return false if the query failed (retried by the next snapshot())
+     */
+    public synchronized boolean seed() {
+        if (seeded) return true;
+
+        DashboardStats s = statsDAO.load(Integer.MAX_VALUE);
+        if (s == null) return false;
+
+        users.add(s.users());
+        accounts.add(s.accounts());
+        balanceCents.add(s.balanceCents());
+        transactions.add(s.transactions());
+        s.byType().forEach((k, n) -> counter(byType, k).add(n));
+        s.byStatus().forEach((k, n) -> counter(byStatus, k).add(n));
+        for (DashboardStats.TopClient c : s.topClients()) {
+            Client client = client(c.userId(), c.username());
+            client.balanceCents.add(c.balanceCents());
+            client.accounts.add(c.accounts());
+        }
+
+        seeded = true;
+        return true;
+    }
+
+    // ---------- ENGINE EVENTS ----------
+
+    @Override
+    public void onCompleted(Transaction tx, TransactionResult r) {
+        String type = tx.ledgerType();
+        // only outcomes that wrote a ledger row (engine / batch errors write none): same counts as StatsDAO
+        if (!seeded || type == null || !r.hasLedgerRow()) return;
+
+        // same status as the ledger row (a rejected transaction is logged FAILED)
+        transactions.increment();
+        counter(byType, type).increment();
+        counter(byStatus, r.isDone() ? "DONE" : "FAILED").increment();
+        if (!r.isDone()) return;
+
+        long cents = tx.amountCents();
+        switch (type) {
+            case "DEPOSIT" -> {
+                balanceCents.add(cents);
+                moved(r.getToAccountId(), cents);
+            }
+            case "WITHDRAW" -> {
+                balanceCents.add(-cents);
+                moved(r.getFromAccountId(), -cents);
+            }
+            default -> {
+                // transfer: total unchanged, one client to another
+                moved(r.getFromAccountId(), -cents);
+                moved(r.getToAccountId(), cents);
+            }
+        }
+    }
+
+    // ---------- RECONCILER ----------
+
+    /** PENDING rows given their final status (balances do not move: they already matched). */
+    @Override
+    public void onReconciled(int done, int failed) {
+        if (!seeded) return;
+        counter(byStatus, "PENDING").add(-(done + failed));
+        if (done > 0) counter(byStatus, "DONE").add(done);
+        if (failed > 0) counter(byStatus, "FAILED").add(failed);
+    }
+
+    private void moved(int accountId, long cents) {
+        Account a = accountRepository.findById(accountId);
+        if (a != null) client(a.getUserId(), null).balanceCents.add(cents);
+    }
+
+    // ---------- USERS / ACCOUNTS SCREENS ----------
+
+    public void userCreated(int userId, String username) {
+        if (!seeded) return;
+        users.increment();
+        client(userId, username).username = username;
+    }
+
+    /** New (empty) account for a user. */
+    public void accountCreated(int userId) {
+        if (!seeded) return;
+        accounts.increment();
+        client(userId, null).accounts.increment();
+    }
+
+    /** User removed with all their accounts (UserStore.deleteUserCascade). */
+    public void userDeleted(int userId) {
+        if (!seeded) return;
+        users.decrement();
+        Client c = clients.remove(userId);
+        if (c == null) return;
+        accounts.add(-c.accounts.sum());
+        balanceCents.add(-c.balanceCents.sum());
+    }
+
+    // ---------- READ ----------
+
+    /** Current figures; only the top N clients need sorting (bounded heap of N). */
+    public DashboardStats snapshot(int topClients) {
+        if (!seeded) seed();
+
+        PriorityQueue<DashboardStats.TopClient> heap =
+                new PriorityQueue<>(Comparator.comparingLong(DashboardStats.TopClient::balanceCents));
+        clients.forEach((id, c) -> {
+            if (c.accounts.sum() == 0) return; // like the seed query: clients with at least one account
+            heap.add(new DashboardStats.TopClient(id, name(id, c), c.balanceCents.sum(), c.accounts.sum()));
+            if (heap.size() > topClients) heap.poll();
+        });
+        List<DashboardStats.TopClient> top = new ArrayList<>(heap);
+        top.sort(Comparator.comparingLong(DashboardStats.TopClient::balanceCents).reversed());
+
+        return new DashboardStats(users.sum(), accounts.sum(), balanceCents.sum(), transactions.sum(),
+                sums(byType), sums(byStatus), top);
+    }
+
+    private static String name(int userId, Client c) {
+        return (c.username != null) ? c.username : "User#" + userId;
+    }
+
+    private Client client(int userId, String username) {
+        return clients.computeIfAbsent(userId, k -> new Client(username));
+    }
+
+    private static LongAdder counter(Map<String, LongAdder> map, String key) {
+        return map.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> map) {
+        Map<String, Long> out = new LinkedHashMap<>();
+        map.forEach((k, v) -> {
+            long n = v.sum();
+            if (n != 0) out.put(k, n); // like the seed query: only what has rows (PENDING once all are reconciled)
+        });
+        return out;
+    }
+}
@@ -0,0 +1,52 @@
+package org.example.bank.storage;
+
+import org.example.bank.model.Account;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Accounts table. Implemented by AccountDAO (MySQL / H2) and MemoryAccountStore.
+ * Returned Account objects are copies: AccountRepository keeps the live ones.
+ */
+public interface AccountStore {
+
+    List<Account> findAll();
+
+    /** Every account in id order, read lazily. Close the stream. */
+    Stream<Account> streamAll();
+
+    /**
+     * streamAll() for callers that only need a callback.
+     * With JDBC the connection stays borrowed while {@code action} runs: keep it short.
+     * @return false if the scan failed (rows already passed to action stay passed)
+     */
+    default boolean forEachAccount(Consumer<Account> action) {
+        try (Stream<Account> accounts = streamAll()) {
+            accounts.forEach(action);
+            return true;
+        } catch (IllegalStateException e) {
+            e.printStackTrace();
+        }
+        return false;
+    }
+
+    /** @return null if there is no such account */
+    Account findById(int accountId);
+
+    /** The existing accounts among {@code ids}, in no particular order. */
+    List<Account> findByIds(int[] ids);
+
+    List<Account> findByUserId(int userId);
+
+    Account findByAccountRef(String accountRef);
+
+    /** Relative update: concurrent deposits / withdrawals commute. */
+    boolean addToBalance(int accountId, double delta);
+
+    /** New empty account "ACC-<id>" for a user. @return its id, or -1 */
+    int createDefaultAccountForUserReturnAccountId(int userId);
+
+    boolean deleteAccountById(int accountId);
+}
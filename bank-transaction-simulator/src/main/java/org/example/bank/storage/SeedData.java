@@ -0,0 +1,24 @@
+package org.example.bank.storage;
+
+import org.example.bank.auth.Role;
+
+import java.util.List;
+
+/**
+ * Demo users and accounts of the h2 and memory backends (the ones of bank_simulator.sql).
+ * Inserted in this order, so users get ids 1..n and accounts "ACC-1".."ACC-n".
+ */
+public final class SeedData {
+
+    public record SeedUser(String username, String password, Role role, List<Double> balances) {
+    }
+
+    public static final List<SeedUser> USERS = List.of(
+            new SeedUser("client1", "1234", Role.CLIENT, List.of(39967.0, 2496.0)),
+            new SeedUser("client2", "1234", Role.CLIENT, List.of(17904.0)),
+            new SeedUser("admin1", "admin", Role.ADMIN, List.of())
+    );
+
+    private SeedData() {
+    }
+}
@@ -0,0 +1,10 @@
+package org.example.bank.storage;
+
+import org.example.bank.dao.DashboardStats;
+
+/** Admin dashboard aggregates. Implemented by StatsDAO (MySQL / H2) and MemoryStatsStore. */
+public interface StatsStore {
+
+    /** @return null on error */
+    DashboardStats load(int topClients);
+}
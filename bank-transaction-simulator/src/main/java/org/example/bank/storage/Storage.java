@@ -0,0 +1,85 @@
+package org.example.bank.storage;
+
+import org.example.bank.dao.AccountDAO;
+import org.example.bank.dao.StatsDAO;
+import org.example.bank.dao.TransactionDAO;
+import org.example.bank.dao.UserDAO;
+import org.example.bank.storage.memory.MemoryStores;
+
+import java.util.Locale;
+
+/**
+ * Storage backend, chosen once at startup with -Dbank.storage:
+ *   mysql   (default) the bank_simulator MySQL server (bank_simulator.sql)
+ *   h2      embedded H2 in MySQL mode, same DAOs and SQL, no server needed
+ *           (-Dbank.h2.url, default an in-memory database living as long as the JVM)
+ *   memory  plain Java collections, no JDBC at all: measures the engine alone
+ *
+ * h2 and memory start with the demo users of SeedData.
+ */
+public final class Storage {
+
+    public enum Backend { MYSQL, H2, MEMORY }
+
+    private static final Backend BACKEND = parse(System.getProperty("bank.storage", "mysql"));
+
+    private static final class Holder {
+        private static final Storage SHARED = create();
+    }
+
+    /** The stores of the selected backend, used by every DAO caller. */
+    public static Storage shared() {
+        return Holder.SHARED;
+    }
+
+    public static Backend backend() {
+        return BACKEND;
+    }
+
+    private final AccountStore accounts;
+    private final TransactionStore transactions;
+    private final UserStore users;
+    private final StatsStore stats;
+
+    public Storage(AccountStore accounts, TransactionStore transactions, UserStore users, StatsStore stats) {
+        this.accounts = accounts;
+        this.transactions = transactions;
+        this.users = users;
+        this.stats = stats;
+    }
+
+    private static Storage create() {
+        System.out.println("[Storage] backend = " + BACKEND.name().toLowerCase(Locale.ROOT));
+        if (BACKEND == Backend.MEMORY) {
+            MemoryStores m = MemoryStores.seeded();
+            return new Storage(m.accounts(), m.transactions(), m.users(), m.stats());
+        }
+        // H2 only changes the JDBC URL (DBConnection)
+        return new Storage(new AccountDAO(), new TransactionDAO(), new UserDAO(), new StatsDAO());
+    }
+
+    private static Backend parse(String value) {
+        try {
+            return Backend.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("[Storage] unknown bank.storage=" + value + ", using mysql");
+            return Backend.MYSQL;
+        }
+    }
+
+    public AccountStore accounts() {
+        return accounts;
+    }
+
+    public TransactionStore transactions() {
+        return transactions;
+    }
+
+    public UserStore users() {
+        return users;
+    }
+
+    public StatsStore stats() {
+        return stats;
+    }
+}
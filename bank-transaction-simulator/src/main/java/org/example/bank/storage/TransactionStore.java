@@ -0,0 +1,81 @@
+package org.example.bank.storage;
+
+import org.example.bank.dao.LedgerRow;
+import org.example.bank.dao.LedgerTotals;
+import org.example.bank.dao.Page;
+import org.example.bank.dao.PendingLedgerRow;
+import org.example.bank.model.TransactionRecord;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Transactions (ledger) table, plus the writes that move balances together with their ledger rows.
+ * Implemented by TransactionDAO (MySQL / H2) and MemoryTransactionStore.
+ */
+public interface TransactionStore {
+
+    /** Ledger row with its final status; the future completes with its id once durable. */
+    CompletableFuture<Integer> logAsync(String type, String fromRef, String toRef, double amount, String status);
+
+    /**
+     * Balance change of one account and its DONE ledger row, group-committed together.
+     * The future completes with the ledger id once both are durable, exceptionally if neither was written.
+     */
+    CompletableFuture<Integer> applyAndLogAsync(int accountId, double delta,
+                                                String type, String fromRef, String toRef, double amount);
+
+    /** Returned by executeTransfer when the transfer was committed but its ledger id is not known. */
+    int ID_UNKNOWN = 0;
+
+    /**
+     * Debit + credit + DONE ledger row, all or nothing.
+     * @return the ledger id (ID_UNKNOWN if committed but no id came back),
+     *         or -1 if nothing was committed (insufficient funds or error): only then may the caller undo
+     */
+    int executeTransfer(int fromId, String fromRef, int toId, String toRef, double amount);
+
+    /**
+     * Net balance change of one account and all its ledger rows, all or nothing.
+     * @return the ledger ids in row order, or null if nothing was written
+     */
+    int[] applyNetAndLog(int accountId, double netDelta, List<LedgerRow> rows);
+
+    // ---------- WAL ----------
+
+    /** Position of the last WAL record applied: 0 if none, -1 if it could not be read. */
+    long findWalCheckpoint();
+
+    /** Balance deltas, ledger rows and the new WAL position, all or nothing. */
+    boolean applyWalCheckpoint(Map<Integer, Double> balanceDeltas, List<LedgerRow> rows, long walPosition);
+
+    // ---------- RECONCILIATION ----------
+
+    /** @return null on error */
+    List<PendingLedgerRow> findPendingBefore(Timestamp cutoff, int afterId, int limit);
+
+    /**
+     * @return null if the account does not exist
+     * @throws IllegalStateException if the totals could not be read
+     */
+    LedgerTotals findLedgerTotals(String accountRef, Timestamp cutoff);
+
+    /**
+     * New status for PENDING rows and the opening balance inferred for some accounts, all or nothing.
+     * @return rows updated (only PENDING ones), or -1 on error
+     */
+    int markStatuses(Map<Integer, String> statusById, Map<String, Double> openingByRef);
+
+    // ---------- READS ----------
+
+    /** Newest first; pageToken null for the first page, then Page.nextToken() of the previous one. */
+    Page<TransactionRecord> findHistoryPage(String accountRef, String pageToken, int limit);
+
+    Page<TransactionRecord> findAllHistoryPage(String pageToken, int limit);
+
+    /** The whole ledger in id order after {@code afterId}, read lazily. Close the stream. */
+    Stream<TransactionRecord> streamLedger(int afterId);
+}
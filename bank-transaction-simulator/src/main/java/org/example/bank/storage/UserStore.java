@@ -0,0 +1,30 @@
+package org.example.bank.storage;
+
+import org.example.bank.auth.User;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/** Users table. Implemented by UserDAO (MySQL / H2) and MemoryUserStore. */
+public interface UserStore {
+
+    /** @return null if no user matches */
+    User findByCredentials(String username, String password);
+
+    /** Newest first. */
+    List<User> findAll();
+
+    /** Every user in id order, read lazily. Close the stream. */
+    Stream<User> streamAll();
+
+    boolean usernameExists(String username);
+
+    /** @return the new user id, or -1 */
+    int createClientReturnId(String username, String password);
+
+    /** @return the new user id, or -1 */
+    int createAdminReturnId(String username, String password);
+
+    /** The user and all their accounts. */
+    boolean deleteUserCascade(int userId);
+}
@@ -0,0 +1,36 @@
+package org.example.bank.storage.memory;
+
+import java.util.Arrays;
+
+/** Growable int[] (no Integer boxes). Not thread-safe: PrimitiveLedger guards it. */
+final class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return values[index];
+    }
+
+    void set(int index, int value) {
+        values[index] = value;
+    }
+
+    void add(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    /** Keeps the first {@code newSize} values. */
+    void truncate(int newSize) {
+        size = newSize;
+    }
+}
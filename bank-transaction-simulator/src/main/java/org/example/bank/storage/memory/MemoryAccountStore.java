@@ -0,0 +1,168 @@
+package org.example.bank.storage.memory;
+
+import org.example.bank.model.Account;
+import org.example.bank.model.Money;
+import org.example.bank.storage.AccountStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Accounts in memory. Each row guards its balance with its own monitor (like an InnoDB row lock):
+ * MemoryTransactionStore holds it while it writes the matching ledger rows.
+ */
+public final class MemoryAccountStore implements AccountStore {
+
+    static final class Row {
+        final int id;
+        final int userId;
+        final String ref;
+        private long cents; // guarded by this
+        private long openingCents; // guarded by this
+
+        Row(int id, int userId, String ref, long cents) {
+            this.id = id;
+            this.userId = userId;
+            this.ref = ref;
+            this.cents = cents;
+            this.openingCents = cents; // no ledger row yet
+        }
+
+        synchronized Account snapshot() {
+            return new Account(id, userId, ref, Money.toAmount(cents));
+        }
+
+        // callers hold the monitor
+        long cents() {
+            return cents;
+        }
+
+        void add(long delta) {
+            cents += delta;
+        }
+
+        long openingCents() {
+            return openingCents;
+        }
+
+        void setOpeningCents(long openingCents) {
+            this.openingCents = openingCents;
+        }
+    }
+
+    private final ConcurrentSkipListMap<Integer, Row> byId = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Row> byRef = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    MemoryAccountStore() {
+    }
+
+    // ---------- package helpers (other memory stores) ----------
+
+    Row row(int accountId) {
+        return byId.get(accountId);
+    }
+
+    Row row(String accountRef) {
+        return (accountRef == null) ? null : byRef.get(accountRef);
+    }
+
+    Iterable<Row> rows() {
+        return byId.values();
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    int insert(int userId, long cents) {
+        int id = lastId.incrementAndGet();
+        Row row = new Row(id, userId, "ACC-" + id, cents);
+        byId.put(id, row);
+        byRef.put(row.ref, row);
+        return id;
+    }
+
+    void deleteByUserId(int userId) {
+        for (Row r : byId.values()) {
+            if (r.userId == userId) remove(r);
+        }
+    }
+
+    private void remove(Row row) {
+        byId.remove(row.id, row);
+        byRef.remove(row.ref, row);
+    }
+
+    // ---------- AccountStore ----------
+
+    @Override
+    public List<Account> findAll() {
+        List<Account> accounts = new ArrayList<>(byId.size());
+        for (Row r : byId.values()) accounts.add(r.snapshot());
+        return accounts;
+    }
+
+    @Override
+    public Stream<Account> streamAll() {
+        return byId.values().stream().map(Row::snapshot);
+    }
+
+    @Override
+    public Account findById(int accountId) {
+        Row r = byId.get(accountId);
+        return (r == null) ? null : r.snapshot();
+    }
+
+    @Override
+    public List<Account> findByIds(int[] ids) {
+        List<Account> accounts = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            Row r = byId.get(id);
+            if (r != null) accounts.add(r.snapshot());
+        }
+        return accounts;
+    }
+
+    @Override
+    public List<Account> findByUserId(int userId) {
+        List<Account> accounts = new ArrayList<>();
+        for (Row r : byId.values()) {
+            if (r.userId == userId) accounts.add(r.snapshot());
+        }
+        return accounts;
+    }
+
+    @Override
+    public Account findByAccountRef(String accountRef) {
+        Row r = row(accountRef);
+        return (r == null) ? null : r.snapshot();
+    }
+
+    @Override
+    public boolean addToBalance(int accountId, double delta) {
+        Row r = byId.get(accountId);
+        if (r == null) return false;
+        synchronized (r) {
+            r.add(Money.toCents(delta));
+        }
+        return true;
+    }
+
+    @Override
+    public int createDefaultAccountForUserReturnAccountId(int userId) {
+        return insert(userId, 0);
+    }
+
+    @Override
+    public boolean deleteAccountById(int accountId) {
+        Row r = byId.get(accountId);
+        if (r == null) return false;
+        remove(r);
+        return true;
+    }
+}
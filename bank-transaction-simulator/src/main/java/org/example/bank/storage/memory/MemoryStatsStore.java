@@ -0,0 +1,70 @@
+package org.example.bank.storage.memory;
+
+import org.example.bank.dao.DashboardStats;
+import org.example.bank.model.TransactionRecord;
+import org.example.bank.storage.StatsStore;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/** Same figures as StatsDAO, computed with one pass over each memory store. */
+public final class MemoryStatsStore implements StatsStore {
+
+    private final MemoryUserStore users;
+    private final MemoryAccountStore accounts;
+    private final MemoryTransactionStore transactions;
+
+    MemoryStatsStore(MemoryUserStore users, MemoryAccountStore accounts, MemoryTransactionStore transactions) {
+        this.users = users;
+        this.accounts = accounts;
+        this.transactions = transactions;
+    }
+
+    @Override
+    public DashboardStats load(int topClients) {
+        long accountCount = 0, balanceCents = 0;
+        Map<Integer, long[]> perUser = new HashMap<>(); // user id -> {cents, accounts}
+        for (MemoryAccountStore.Row r : accounts.rows()) {
+            long cents;
+            synchronized (r) {
+                cents = r.cents();
+            }
+            accountCount++;
+            balanceCents += cents;
+            long[] sums = perUser.computeIfAbsent(r.userId, k -> new long[2]);
+            sums[0] += cents;
+            sums[1]++;
+        }
+
+        // counted on the primitive columns: no record built
+        long[] types = new long[TransactionRecord.Type.values().length];
+        long[] statuses = new long[TransactionRecord.Status.values().length];
+        transactions.ledger().count(types, statuses);
+
+        long transactionCount = 0;
+        Map<String, Long> byType = new LinkedHashMap<>();
+        for (TransactionRecord.Type t : TransactionRecord.Type.values()) {
+            if (types[t.ordinal()] > 0) byType.put(t.name(), types[t.ordinal()]);
+            transactionCount += types[t.ordinal()];
+        }
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        for (TransactionRecord.Status st : TransactionRecord.Status.values()) {
+            if (statuses[st.ordinal()] > 0) byStatus.put(st.name(), statuses[st.ordinal()]);
+        }
+
+        List<DashboardStats.TopClient> top = new ArrayList<>();
+        for (Map.Entry<Integer, long[]> e : perUser.entrySet()) {
+            String username = users.username(e.getKey());
+            if (username == null) continue; // JOIN users: orphan accounts are not listed
+            top.add(new DashboardStats.TopClient(e.getKey(), username, e.getValue()[0], e.getValue()[1]));
+        }
+        top.sort(Comparator.comparingLong(DashboardStats.TopClient::balanceCents).reversed());
+        if (top.size() > topClients) top = new ArrayList<>(top.subList(0, topClients));
+
+        return new DashboardStats(users.size(), accountCount, balanceCents, transactionCount, byType, byStatus, top);
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.bank.storage.memory;
+
+import org.example.bank.model.Money;
+import org.example.bank.storage.SeedData;
+
+/** One consistent set of memory stores (they share the account rows). */
+public record MemoryStores(MemoryAccountStore accounts, MemoryTransactionStore transactions,
+                           MemoryUserStore users, MemoryStatsStore stats) {
+
+    /** No users, no accounts, no ledger. */
+    public static MemoryStores empty() {
+        MemoryAccountStore accounts = new MemoryAccountStore();
+        MemoryTransactionStore transactions = new MemoryTransactionStore(accounts);
+        MemoryUserStore users = new MemoryUserStore(accounts);
+        return new MemoryStores(accounts, transactions, users, new MemoryStatsStore(users, accounts, transactions));
+    }
+
+    /** The demo users and accounts of SeedData. */
+    public static MemoryStores seeded() {
+        MemoryStores m = empty();
+        for (SeedData.SeedUser u : SeedData.USERS) {
+            int userId = m.users.create(u.username(), u.password(), u.role());
+            for (double balance : u.balances()) m.accounts.insert(userId, Money.toCents(balance));
+        }
+        return m;
+    }
+}
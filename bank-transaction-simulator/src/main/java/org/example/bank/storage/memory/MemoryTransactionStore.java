@@ -0,0 +1,174 @@
+package org.example.bank.storage.memory;
+
+import org.example.bank.dao.LedgerRow;
+import org.example.bank.dao.LedgerTotals;
+import org.example.bank.dao.Page;
+import org.example.bank.dao.PendingLedgerRow;
+import org.example.bank.model.Money;
+import org.example.bank.model.TransactionRecord;
+import org.example.bank.model.TransactionRecord.Status;
+import org.example.bank.storage.TransactionStore;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+/**
+ * Ledger in memory, stored by PrimitiveLedger (primitive columns and int-list indexes, no object per row).
+ *
+ * Balance changes and their ledger rows are written under the account row monitors
+ * (see MemoryAccountStore.Row), so findLedgerTotals never sees one without the other.
+ */
+public final class MemoryTransactionStore implements TransactionStore {
+
+    private final MemoryAccountStore accounts;
+    private final PrimitiveLedger ledger = new PrimitiveLedger();
+
+    private volatile long walPosition;
+
+    MemoryTransactionStore(MemoryAccountStore accounts) {
+        this.accounts = accounts;
+    }
+
+    // ---------- package helpers ----------
+
+    PrimitiveLedger ledger() {
+        return ledger;
+    }
+
+    private int insert(String type, String fromRef, String toRef, double amount, String status, long createdAtMillis) {
+        return ledger.append(TransactionRecord.Type.valueOf(type), fromRef, toRef, Money.toCents(amount),
+                (status == null) ? Status.PENDING : Status.valueOf(status), createdAtMillis);
+    }
+
+    private int insert(LedgerRow r) {
+        return insert(r.type(), r.fromRef(), r.toRef(), r.amount(), r.status(), r.createdAtMillis());
+    }
+
+    // ---------- WRITES ----------
+
+    @Override
+    public CompletableFuture<Integer> logAsync(String type, String fromRef, String toRef, double amount, String status) {
+        // nothing to batch: the row is "durable" as soon as it is in the ledger
+        return CompletableFuture.completedFuture(insert(type, fromRef, toRef, amount, status, 0));
+    }
+
+    @Override
+    public CompletableFuture<Integer> applyAndLogAsync(int accountId, double delta,
+                                                       String type, String fromRef, String toRef, double amount) {
+        int[] ids = applyNetAndLog(accountId, delta, List.of(new LedgerRow(type, fromRef, toRef, amount, "DONE")));
+        return (ids == null)
+                ? CompletableFuture.failedFuture(new IllegalStateException("No account " + accountId))
+                : CompletableFuture.completedFuture(ids[0]);
+    }
+
+    @Override
+    public int executeTransfer(int fromId, String fromRef, int toId, String toRef, double amount) {
+        MemoryAccountStore.Row from = accounts.row(fromId);
+        MemoryAccountStore.Row to = accounts.row(toId);
+        if (from == null || to == null || from == to) return -1;
+
+        long cents = Money.toCents(amount);
+        // always lock the lower id first (no deadlock with the opposite transfer)
+        MemoryAccountStore.Row first = (fromId < toId) ? from : to;
+        MemoryAccountStore.Row second = (first == from) ? to : from;
+        synchronized (first) {
+            synchronized (second) {
+                if (from.cents() < cents) return -1;
+                from.add(-cents);
+                to.add(cents);
+                return insert("TRANSFER", fromRef, toRef, amount, "DONE", 0);
+            }
+        }
+    }
+
+    @Override
+    public int[] applyNetAndLog(int accountId, double netDelta, List<LedgerRow> rows) {
+        MemoryAccountStore.Row account = accounts.row(accountId);
+        if (account == null) {
+            if (netDelta != 0) return null;
+            return insertAll(rows);
+        }
+        synchronized (account) {
+            account.add(Money.toCents(netDelta));
+            return insertAll(rows);
+        }
+    }
+
+    private int[] insertAll(List<LedgerRow> rows) {
+        int[] ids = new int[rows.size()];
+        for (int k = 0; k < ids.length; k++) ids[k] = insert(rows.get(k));
+        return ids;
+    }
+
+    // ---------- WAL ----------
+
+    @Override
+    public long findWalCheckpoint() {
+        return walPosition;
+    }
+
+    @Override
+    public synchronized boolean applyWalCheckpoint(Map<Integer, Double> balanceDeltas, List<LedgerRow> rows, long walPosition) {
+        for (Map.Entry<Integer, Double> d : balanceDeltas.entrySet()) {
+            MemoryAccountStore.Row account = accounts.row(d.getKey());
+            if (account == null) continue; // UPDATE of a deleted account: 0 rows
+            synchronized (account) {
+                account.add(Money.toCents(d.getValue()));
+            }
+        }
+        for (LedgerRow r : rows) insert(r);
+        this.walPosition = walPosition;
+        return true;
+    }
+
+    // ---------- RECONCILIATION ----------
+
+    @Override
+    public List<PendingLedgerRow> findPendingBefore(Timestamp cutoff, int afterId, int limit) {
+        return ledger.pendingBefore(cutoff.getTime(), afterId, limit);
+    }
+
+    @Override
+    public LedgerTotals findLedgerTotals(String accountRef, Timestamp cutoff) {
+        MemoryAccountStore.Row account = accounts.row(accountRef);
+        if (account == null) return null;
+
+        synchronized (account) {
+            long[] t = ledger.totals(accountRef, cutoff.getTime());
+            return new LedgerTotals(Money.toAmount(account.cents()), Money.toAmount(account.openingCents()),
+                    Money.toAmount(t[0]), Money.toAmount(t[1]), (int) t[2]);
+        }
+    }
+
+    @Override
+    public int markStatuses(Map<Integer, String> statusById, Map<String, Double> openingByRef) {
+        for (Map.Entry<String, Double> e : openingByRef.entrySet()) {
+            MemoryAccountStore.Row account = accounts.row(e.getKey());
+            if (account == null) continue;
+            synchronized (account) {
+                account.setOpeningCents(Money.toCents(e.getValue()));
+            }
+        }
+        return ledger.markStatuses(statusById);
+    }
+
+    // ---------- READS ----------
+
+    @Override
+    public Page<TransactionRecord> findHistoryPage(String accountRef, String pageToken, int limit) {
+        return ledger.historyPage(accountRef, pageToken, limit);
+    }
+
+    @Override
+    public Page<TransactionRecord> findAllHistoryPage(String pageToken, int limit) {
+        return ledger.historyPage(null, pageToken, limit);
+    }
+
+    @Override
+    public Stream<TransactionRecord> streamLedger(int afterId) {
+        return ledger.stream(afterId);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.bank.storage.memory;
+
+import org.example.bank.auth.Role;
+import org.example.bank.auth.User;
+import org.example.bank.storage.UserStore;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/** Users in memory; the username map plays the UNIQUE KEY. */
+public final class MemoryUserStore implements UserStore {
+
+    private record Row(int id, String username, String password, Role role) {
+        User user() {
+            return new User(id, username, role);
+        }
+    }
+
+    private final MemoryAccountStore accounts;
+
+    private final ConcurrentSkipListMap<Integer, Row> byId = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Row> byName = new ConcurrentHashMap<>();
+    private final AtomicInteger lastId = new AtomicInteger();
+
+    MemoryUserStore(MemoryAccountStore accounts) {
+        this.accounts = accounts;
+    }
+
+    /** @return null if the user does not exist */
+    String username(int userId) {
+        Row r = byId.get(userId);
+        return (r == null) ? null : r.username();
+    }
+
+    int size() {
+        return byId.size();
+    }
+
+    @Override
+    public User findByCredentials(String username, String password) {
+        Row r = byName.get(username);
+        return (r != null && r.password().equals(password)) ? r.user() : null;
+    }
+
+    @Override
+    public List<User> findAll() {
+        List<User> users = new ArrayList<>(byId.size());
+        for (Row r : byId.descendingMap().values()) users.add(r.user());
+        return users;
+    }
+
+    @Override
+    public Stream<User> streamAll() {
+        return byId.values().stream().map(Row::user);
+    }
+
+    @Override
+    public boolean usernameExists(String username) {
+        return byName.containsKey(username);
+    }
+
+    @Override
+    public int createClientReturnId(String username, String password) {
+        return create(username, password, Role.CLIENT);
+    }
+
+    @Override
+    public int createAdminReturnId(String username, String password) {
+        return create(username, password, Role.ADMIN);
+    }
+
+    int create(String username, String password, Role role) {
+        // like AUTO_INCREMENT, a duplicate still burns its id
+        Row row = new Row(lastId.incrementAndGet(), username, password, role);
+        if (byName.putIfAbsent(username, row) != null) return -1;
+        byId.put(row.id(), row);
+        return row.id();
+    }
+
+    @Override
+    public boolean deleteUserCascade(int userId) {
+        Row r = byId.get(userId);
+        if (r == null) return false;
+        // ledger rows stay, as with UserDAO
+        accounts.deleteByUserId(userId);
+        byId.remove(userId);
+        byName.remove(r.username(), r);
+        return true;
+    }
+}
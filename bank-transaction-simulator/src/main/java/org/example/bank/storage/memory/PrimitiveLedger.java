@@ -0,0 +1,365 @@
+package org.example.bank.storage.memory;
+
+import org.example.bank.dao.Page;
+import org.example.bank.dao.PendingLedgerRow;
+import org.example.bank.model.TransactionRecord;
+import org.example.bank.model.TransactionRecord.Status;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The ledger as parallel primitive columns, no object per row (26 bytes + 8 to 12 of indexes):
+ *   type byte | from int | to int | amount long (cents) | created_at long (ms) | status byte
+ *
+ * A row id is its position + 1 (AUTO_INCREMENT). Account refs are stored as ints:
+ * the ledger numbers the refs it sees 0, 1, 2... (-1 = NULL), so a ref's index is a list lookup.
+ *
+ * Indexes are int lists of row positions:
+ *   byTime      whole ledger in (created_at, id) order (admin history)
+ *   byAccount   the same, one list per ref (account history and totals only read k rows)
+ *   pending     ids of the PENDING rows, ascending (reconciler); marked rows are dropped lazily
+ *
+ * Columns grow by chunks of 64K rows: the rows already stored are never copied.
+ * One read/write lock: an append is a few array stores, readers copy out what they return.
+ */
+final class PrimitiveLedger {
+
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final int NO_REF = -1;
+    private static final int STREAM_BATCH = 1024;
+
+    private static final TransactionRecord.Type[] TYPES = TransactionRecord.Type.values();
+    private static final Status[] STATUSES = Status.values();
+    private static final byte PENDING = (byte) Status.PENDING.ordinal();
+    private static final byte FAILED = (byte) Status.FAILED.ordinal();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // ---- columns (chunk, then row in chunk), guarded by lock
+    private byte[][] types = new byte[0][];
+    private int[][] froms = new int[0][];
+    private int[][] tos = new int[0][];
+    private long[][] amounts = new long[0][];
+    private long[][] createdAts = new long[0][];
+    private byte[][] statuses = new byte[0][];
+    private int size;
+
+    // ---- indexes, guarded by lock
+    private final IntList byTime = new IntList(CHUNK_SIZE);
+    private final List<IntList> byAccount = new ArrayList<>();
+    private final IntList pending = new IntList(1024);
+    private int stalePending;
+
+    private final Map<String, Integer> refCodes = new HashMap<>();
+    private final List<String> refs = new ArrayList<>();
+
+    // ---------- WRITES ----------
+
+    /** @return the id of the new row */
+    int append(TransactionRecord.Type type, String fromRef, String toRef, long cents, Status status, long createdAtMillis) {
+        lock.writeLock().lock();
+        try {
+            int row = size;
+            int c = row >>> CHUNK_BITS, i = row & CHUNK_MASK;
+            if (i == 0) addChunk(c);
+
+            int from = code(fromRef);
+            int to = code(toRef);
+            types[c][i] = (byte) type.ordinal();
+            froms[c][i] = from;
+            tos[c][i] = to;
+            amounts[c][i] = cents;
+            createdAts[c][i] = (createdAtMillis > 0) ? createdAtMillis : System.currentTimeMillis();
+            statuses[c][i] = (byte) status.ordinal();
+            size = row + 1;
+
+            insertByTime(byTime, row);
+            if (from != NO_REF) insertByTime(byAccount.get(from), row);
+            if (to != NO_REF && to != from) insertByTime(byAccount.get(to), row);
+            if (status == Status.PENDING) pending.add(row + 1);
+            return row + 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addChunk(int c) {
+        if (c == types.length) {
+            int n = Math.max(16, c * 2); // only the chunk pointers are copied
+            types = Arrays.copyOf(types, n);
+            froms = Arrays.copyOf(froms, n);
+            tos = Arrays.copyOf(tos, n);
+            amounts = Arrays.copyOf(amounts, n);
+            createdAts = Arrays.copyOf(createdAts, n);
+            statuses = Arrays.copyOf(statuses, n);
+        }
+        types[c] = new byte[CHUNK_SIZE];
+        froms[c] = new int[CHUNK_SIZE];
+        tos[c] = new int[CHUNK_SIZE];
+        amounts[c] = new long[CHUNK_SIZE];
+        createdAts[c] = new long[CHUNK_SIZE];
+        statuses[c] = new byte[CHUNK_SIZE];
+    }
+
+    private int code(String ref) {
+        if (ref == null) return NO_REF;
+        Integer code = refCodes.get(ref);
+        if (code != null) return code;
+        refs.add(ref);
+        byAccount.add(new IntList(16));
+        refCodes.put(ref, refs.size() - 1);
+        return refs.size() - 1;
+    }
+
+    // the new row has the highest id: it goes after every row not created later (usually: appended)
+    private void insertByTime(IntList index, int row) {
+        long at = createdAt(row);
+        index.add(row);
+        int k = index.size() - 1;
+        while (k > 0 && createdAt(index.get(k - 1)) > at) {
+            index.set(k, index.get(k - 1));
+            k--;
+        }
+        index.set(k, row);
+    }
+
+    /**
+     * New status for PENDING rows; the others are left alone.
+     * @return rows updated, or -1 if a status is unknown (nothing changed)
+     */
+    int markStatuses(Map<Integer, String> statusById) {
+        Map<Integer, Status> parsed = new HashMap<>();
+        try {
+            for (Map.Entry<Integer, String> e : statusById.entrySet()) parsed.put(e.getKey(), Status.valueOf(e.getValue()));
+        } catch (IllegalArgumentException e) {
+            e.printStackTrace();
+            return -1;
+        }
+
+        lock.writeLock().lock();
+        try {
+            int updated = 0;
+            for (Map.Entry<Integer, Status> e : parsed.entrySet()) {
+                int row = e.getKey() - 1;
+                if (row < 0 || row >= size) continue;
+                int c = row >>> CHUNK_BITS, i = row & CHUNK_MASK;
+                if (statuses[c][i] != PENDING) continue;
+
+                statuses[c][i] = (byte) e.getValue().ordinal();
+                if (e.getValue() != Status.PENDING) stalePending++;
+                updated++;
+            }
+            if (stalePending > pending.size() / 2) compactPending();
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void compactPending() {
+        int n = 0;
+        for (int k = 0; k < pending.size(); k++) {
+            int id = pending.get(k);
+            if (status(id - 1) == PENDING) pending.set(n++, id);
+        }
+        pending.truncate(n);
+        stalePending = 0;
+    }
+
+    // ---------- READS ----------
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Newest first, same token as TransactionDAO ("<created_at millis>:<id>" of the last row shown).
+     * @param accountRef null for the whole ledger
+     */
+    Page<TransactionRecord> historyPage(String accountRef, String pageToken, int limit) {
+        lock.readLock().lock();
+        try {
+            IntList index = byTime;
+            if (accountRef != null) {
+                Integer code = refCodes.get(accountRef);
+                if (code == null) return new Page<>(List.of(), null);
+                index = byAccount.get(code);
+            }
+
+            // rows before the token: binary search, then k steps back
+            int end = index.size();
+            if (pageToken != null) {
+                String[] t = pageToken.split(":");
+                end = firstNotBefore(index, Long.parseLong(t[0]), Integer.parseInt(t[1]) - 1);
+            }
+
+            List<TransactionRecord> records = new ArrayList<>(Math.min(limit, end));
+            int k = end - 1;
+            for (; k >= 0 && records.size() < limit; k--) records.add(record(index.get(k)));
+
+            String nextToken = null;
+            if (k >= 0 && !records.isEmpty()) {
+                TransactionRecord last = records.get(records.size() - 1);
+                nextToken = last.createdAtMillis() + ":" + last.id();
+            }
+            return new Page<>(records, nextToken);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // first position whose (created_at, row) is >= (at, row)
+    private int firstNotBefore(IntList index, long at, int row) {
+        int lo = 0, hi = index.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int r = index.get(mid);
+            long rAt = createdAt(r);
+            if (rAt < at || (rAt == at && r < row)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /**
+     * DONE and PENDING net of one account in cents (FAILED rows move nothing).
+     * @return {doneNet, pendingNet, PENDING rows created at or after cutoff}
+     */
+    long[] totals(String accountRef, long cutoffMillis) {
+        long[] totals = new long[3];
+        lock.readLock().lock();
+        try {
+            Integer code = refCodes.get(accountRef);
+            if (code == null) return totals;
+
+            IntList index = byAccount.get(code);
+            for (int k = 0; k < index.size(); k++) {
+                int row = index.get(k);
+                int c = row >>> CHUNK_BITS, i = row & CHUNK_MASK;
+                byte status = statuses[c][i];
+                if (status == FAILED) continue;
+
+                // a transfer to itself counts on both sides: net 0, like the UNION ALL of TransactionDAO
+                long delta = 0;
+                if (tos[c][i] == code) delta += amounts[c][i];
+                if (froms[c][i] == code) delta -= amounts[c][i];
+
+                if (status == PENDING) {
+                    totals[1] += delta;
+                    if (createdAts[c][i] >= cutoffMillis) totals[2]++;
+                } else {
+                    totals[0] += delta;
+                }
+            }
+            return totals;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** PENDING rows created before cutoff, in id order after afterId. */
+    List<PendingLedgerRow> pendingBefore(long cutoffMillis, int afterId, int limit) {
+        List<PendingLedgerRow> rows = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int lo = 0, hi = pending.size();
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (pending.get(mid) <= afterId) lo = mid + 1;
+                else hi = mid;
+            }
+            for (int k = lo; k < pending.size() && rows.size() < limit; k++) {
+                int row = pending.get(k) - 1;
+                if (status(row) != PENDING || createdAt(row) >= cutoffMillis) continue;
+                TransactionRecord r = record(row);
+                rows.add(new PendingLedgerRow(r.id(), r.type().name(), r.fromRef(), r.toRef(), r.amount()));
+            }
+            return rows;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Row counts per TransactionRecord.Type / Status ordinal, added to the two arrays. */
+    void count(long[] byType, long[] byStatus) {
+        lock.readLock().lock();
+        try {
+            for (int row = 0; row < size; row++) {
+                int c = row >>> CHUNK_BITS, i = row & CHUNK_MASK;
+                byType[types[c][i]]++;
+                byStatus[statuses[c][i]]++;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Rows after afterId in id order, materialized STREAM_BATCH at a time (the lock is not held between batches). */
+    Stream<TransactionRecord> stream(int afterId) {
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<TransactionRecord>(
+                Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+
+            private int next = Math.max(0, afterId); // row position
+            private final ArrayDeque<TransactionRecord> batch = new ArrayDeque<>(STREAM_BATCH);
+
+            @Override
+            public boolean tryAdvance(Consumer<? super TransactionRecord> action) {
+                if (batch.isEmpty()) next = fill(batch, next);
+                TransactionRecord r = batch.poll();
+                if (r == null) return false;
+                action.accept(r);
+                return true;
+            }
+        }, false);
+    }
+
+    private int fill(ArrayDeque<TransactionRecord> batch, int from) {
+        lock.readLock().lock();
+        try {
+            int to = Math.min(size, from + STREAM_BATCH);
+            for (int row = from; row < to; row++) batch.add(record(row));
+            return Math.max(from, to);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------- ROW ACCESS (lock held) ----------
+
+    private long createdAt(int row) {
+        return createdAts[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    private byte status(int row) {
+        return statuses[row >>> CHUNK_BITS][row & CHUNK_MASK];
+    }
+
+    private String ref(int code) {
+        return (code == NO_REF) ? null : refs.get(code);
+    }
+
+    private TransactionRecord record(int row) {
+        int c = row >>> CHUNK_BITS, i = row & CHUNK_MASK;
+        return new TransactionRecord(row + 1, TYPES[types[c][i]], ref(froms[c][i]), ref(tos[c][i]),
+                amounts[c][i], createdAts[c][i], STATUSES[statuses[c][i]]);
+    }
+}
@@ -2,16 +2,16 @@ package org.example.bank.test;
 
 import org.example.bank.concurrency.BankEngine;
 import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
 
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 
 public class DifferentAccountsParallelTest {
 
-    private static final ConcurrentHashMap<String, Integer> balances = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, Integer> balances = new ConcurrentHashMap<>();
     private static final DateTimeFormatter F = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
 
     private static String now() {
@@ -21,13 +21,13 @@ public class DifferentAccountsParallelTest {
     // Transaction that locks ONE account
     public static class DemoTx implements Transaction {
         private final String name;
-        private final String acc;
+        private final int acc;
         private final int delta;
         private final int workMs;
         private final CountDownLatch startGate;
         private final CountDownLatch doneGate;
 
-        public DemoTx(String name, String acc, int delta, int workMs,
+        public DemoTx(String name, int acc, int delta, int workMs,
                       CountDownLatch startGate, CountDownLatch doneGate) {
             this.name = name;
             this.acc = acc;
@@ -38,12 +38,13 @@ public class DifferentAccountsParallelTest {
         }
 
         // ✅ different accounts => different locks => real parallel
-        public List<String> lockKeys() {
-            return List.of(acc);
+        @Override
+        public int[] lockIds() {
+            return new int[]{ acc };
         }
 
         @Override
-        public void execute() {
+        public TransactionResult execute() {
             try {
                 startGate.await();
 
@@ -58,10 +59,12 @@ public class DifferentAccountsParallelTest {
                 long end = System.nanoTime();
                 System.out.println(now() + "  END    " + name
                         + "   took=" + ((end - start) / 1_000_000) + " ms"
-                        + "   balance(" + acc + ")=" + balances.get(acc));
+                        + "   balance(ACC-" + acc + ")=" + balances.get(acc));
+                return TransactionResult.done();
 
             } catch (Exception e) {
                 System.err.println(now() + "  ERROR " + name + " : " + e.getMessage());
+                return TransactionResult.failed(e.getMessage());
             } finally {
                 doneGate.countDown();
             }
@@ -70,8 +73,8 @@ public class DifferentAccountsParallelTest {
 
     public static void main(String[] args) throws Exception {
 
-        String A = "ACC-A";
-        String B = "ACC-B";
+        int A = 1; // ACC-1
+        int B = 2; // ACC-2
         balances.put(A, 100);
         balances.put(B, 200);
 
@@ -82,10 +85,10 @@ public class DifferentAccountsParallelTest {
         CountDownLatch doneGate = new CountDownLatch(2);
 
         // ✅ Different accounts
-        DemoTx tx1 = new DemoTx("Tx-1 (+50 on ACC-A)", A, +50, 1000, startGate, doneGate);
-        DemoTx tx2 = new DemoTx("Tx-2 (-30 on ACC-B)", B, -30, 1000, startGate, doneGate);
+        DemoTx tx1 = new DemoTx("Tx-1 (+50 on ACC-1)", A, +50, 1000, startGate, doneGate);
+        DemoTx tx2 = new DemoTx("Tx-2 (-30 on ACC-2)", B, -30, 1000, startGate, doneGate);
 
-        System.out.println("Initial balances: " + A + "=" + balances.get(A) + " | " + B + "=" + balances.get(B));
+        System.out.println("Initial balances: ACC-" + A + "=" + balances.get(A) + " | ACC-" + B + "=" + balances.get(B));
 
         long t0 = System.nanoTime();
 
@@ -99,8 +102,9 @@ public class DifferentAccountsParallelTest {
 
         long t1 = System.nanoTime();
         System.out.println("\nTOTAL time = " + ((t1 - t0) / 1_000_000) + " ms");
-        System.out.println("Final balances: " + A + "=" + balances.get(A) + " | " + B + "=" + balances.get(B));
+        System.out.println("Final balances: ACC-" + A + "=" + balances.get(A) + " | ACC-" + B + "=" + balances.get(B));
 
+        System.out.println("Lock stats: " + engine.lockStats());
         engine.shutdown();
     }
 }
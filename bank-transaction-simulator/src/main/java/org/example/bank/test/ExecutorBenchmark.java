@@ -0,0 +1,77 @@
+package org.example.bank.test;
+
+import org.example.bank.concurrency.BankEngine;
+import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Fixed platform pool (3 / 16 / 64 threads) vs virtual thread per transaction.
+ * Each transaction sleeps to simulate JDBC latency, so no database is needed.
+ * Run on Java 21+ for the VIRTUAL rows (on 17 the engine falls back to LOCKING).
+ */
+public class ExecutorBenchmark {
+
+    private static final int ACCOUNTS = 5_000;
+    private static final int TRANSACTIONS = 5_000;
+    private static final int DB_LATENCY_MS = 5;
+
+    public static class IoBoundTx implements Transaction {
+        private final int[] ids;
+        private final CountDownLatch done;
+
+        public IoBoundTx(int accountId, CountDownLatch done) {
+            this.ids = new int[]{ accountId };
+            this.done = done;
+        }
+
+        @Override
+        public int[] lockIds() {
+            return ids;
+        }
+
+        @Override
+        public TransactionResult execute() {
+            try {
+                Thread.sleep(DB_LATENCY_MS); // UPDATE + INSERT round trips
+                return TransactionResult.done();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return TransactionResult.failed("interrupted");
+            } finally {
+                done.countDown();
+            }
+        }
+    }
+
+    private static void run(String title, BankEngine engine) throws Exception {
+        Random r = new Random(11);
+        CountDownLatch done = new CountDownLatch(TRANSACTIONS);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < TRANSACTIONS; i++) {
+            engine.submit(new IoBoundTx(r.nextInt(ACCOUNTS), done));
+        }
+        done.await();
+        long t1 = System.nanoTime();
+        engine.shutdown();
+
+        double ms = (t1 - t0) / 1_000_000.0;
+        System.out.printf("%-30s %9.1f ms   %,9.0f tx/s%n", title, ms, TRANSACTIONS / (ms / 1000.0));
+        System.out.println("    " + engine.queueStats());
+    }
+
+    public static void main(String[] args) throws Exception {
+        System.out.println("=== " + TRANSACTIONS + " transactions, " + DB_LATENCY_MS + " ms simulated DB latency ===");
+
+        for (int threads : new int[]{ 3, 16, 64 }) {
+            run("LOCKING fixed pool x" + threads, new BankEngine(threads, BankEngine.Mode.LOCKING));
+        }
+        for (int permits : new int[]{ 64, 1000 }) {
+            BankEngine engine = new BankEngine(permits, BankEngine.Mode.VIRTUAL);
+            run(engine.getMode() + " (" + permits + " permits)", engine);
+        }
+    }
+}
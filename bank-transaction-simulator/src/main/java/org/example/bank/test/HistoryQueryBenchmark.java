@@ -0,0 +1,142 @@
+package org.example.bank.test;
+
+import org.example.bank.DBConnection;
+import org.example.bank.PooledConnection;
+import org.example.bank.dao.AccountDAO;
+import org.example.bank.dao.Page;
+import org.example.bank.dao.TransactionDAO;
+import org.example.bank.model.Account;
+import org.example.bank.model.TransactionRecord;
+import org.example.bank.storage.Storage;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Account history: the old "from = ? OR to = ?" query vs findHistoryPage (UNION ALL on the
+ * (ref, created_at) indexes). Needs the database: bank.bench.rows fake DONE transfers (default
+ * 10 000 000) spread over the existing accounts are added to the transactions table, so it only
+ * runs with -Dbank.bench.fill=true (use a copy of the database, or -Dbank.storage=h2).
+ *
+ * The fake rows are dated in 2000, before any real row, and deleted at the end. A run that was
+ * killed leaves them behind: the next run deletes them first.
+ */
+public class HistoryQueryBenchmark {
+
+    private static final int ROWS = Integer.getInteger("bank.bench.rows", 10_000_000);
+    private static final int BATCH = 10_000;
+    private static final int PAGE = 50;
+    private static final int PAGES = 5;
+    private static final int RUNS = 20;
+
+    // fake rows: [BENCH_START, BENCH_END), no real ledger row is that old
+    private static final Timestamp BENCH_START = Timestamp.valueOf("2000-01-01 00:00:00");
+    private static final Timestamp BENCH_END = Timestamp.valueOf("2001-01-01 00:00:00");
+
+    private static final String OR_QUERY = """
+        SELECT id, type, from_account_ref, to_account_ref, amount, status, created_at
+        FROM transactions
+        WHERE (from_account_ref = ? OR to_account_ref = ?)
+        ORDER BY created_at DESC, id DESC
+        LIMIT ?
+        """;
+
+    private static void fill(List<Account> accounts) throws Exception {
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            System.out.println("Inserting " + ROWS + " ledger rows...");
+            conn.setAutoCommit(false);
+            PreparedStatement ps = conn.cachedStatement(
+                    "INSERT INTO transactions (type, from_account_ref, to_account_ref, amount, status, created_at) VALUES ('TRANSFER', ?, ?, 1, 'DONE', ?)");
+            Random r = new Random(3);
+            long t = BENCH_START.getTime();
+            for (long i = 0; i < ROWS; i++) {
+                ps.setString(1, accounts.get(r.nextInt(accounts.size())).getAccountRef());
+                ps.setString(2, accounts.get(r.nextInt(accounts.size())).getAccountRef());
+                ps.setTimestamp(3, new Timestamp(t + i)); // 1 ms apart: 10M rows fit in 3 hours
+                ps.addBatch();
+                if ((i + 1) % BATCH == 0) {
+                    ps.executeBatch();
+                    conn.commit();
+                }
+            }
+            ps.executeBatch();
+            conn.commit();
+        }
+    }
+
+    // one small commit at a time (created_at_id index), not one huge transaction
+    private static void cleanup() throws Exception {
+        long deleted = 0;
+        try (PooledConnection conn = DBConnection.getConnection()) {
+            PreparedStatement ps = conn.cachedStatement(
+                    "DELETE FROM transactions WHERE created_at >= ? AND created_at < ? LIMIT " + BATCH);
+            ps.setTimestamp(1, BENCH_START);
+            ps.setTimestamp(2, BENCH_END);
+            int n;
+            while ((n = ps.executeUpdate()) > 0) deleted += n;
+        }
+        if (deleted > 0) System.out.println("Deleted " + deleted + " benchmark rows.");
+    }
+
+    // first page only: without an index the OR query sorts the whole account history for it
+    private static double orQuery(String ref) throws Exception {
+        long t0 = System.nanoTime();
+        for (int run = 0; run < RUNS; run++) {
+            try (PooledConnection conn = DBConnection.getConnection()) {
+                PreparedStatement ps = conn.cachedStatement(OR_QUERY);
+                ps.setString(1, ref);
+                ps.setString(2, ref);
+                ps.setInt(3, PAGE + 1);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) { /* read */ }
+                }
+            }
+        }
+        return (System.nanoTime() - t0) / 1_000_000.0 / RUNS;
+    }
+
+    private static double unionQuery(String ref, int pages) {
+        TransactionDAO dao = new TransactionDAO();
+        long t0 = System.nanoTime();
+        for (int run = 0; run < RUNS; run++) {
+            String token = null;
+            for (int p = 0; p < pages; p++) {
+                Page<TransactionRecord> page = dao.findHistoryPage(ref, token, PAGE);
+                if (!page.hasMore()) break;
+                token = page.nextToken();
+            }
+        }
+        return (System.nanoTime() - t0) / 1_000_000.0 / RUNS;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (!Boolean.getBoolean("bank.bench.fill")) {
+            String db = (Storage.backend() == Storage.Backend.H2) ? "the H2 database" : "MySQL bank_simulator";
+            System.out.println("This benchmark adds " + ROWS + " fake rows to the transactions table of "
+                    + db + " (deleted at the end). Run it with -Dbank.bench.fill=true.");
+            return;
+        }
+        List<Account> accounts = new AccountDAO().findAll();
+        if (accounts.isEmpty()) {
+            System.out.println("No account in the database.");
+            return;
+        }
+        cleanup(); // left by a killed run
+        try {
+            fill(accounts);
+            String ref = accounts.get(0).getAccountRef();
+
+            System.out.println("=== " + ref + ", " + PAGE + " rows per page, average of " + RUNS + " runs ===");
+            System.out.printf("%-36s %9.2f ms%n", "OR query, first page", orQuery(ref));
+            System.out.printf("%-36s %9.2f ms%n", "UNION ALL, first page", unionQuery(ref, 1));
+            System.out.printf("%-36s %9.2f ms%n", "UNION ALL, " + PAGES + " pages (keyset)", unionQuery(ref, PAGES));
+            System.out.println("    " + DBConnection.stats());
+        } finally {
+            cleanup();
+            DBConnection.shutdown();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.bank.test;
+
+import org.example.bank.DBConnection;
+import org.example.bank.concurrency.BankEngine;
+import org.example.bank.dao.AccountRepository;
+import org.example.bank.dao.LedgerWriter;
+import org.example.bank.model.Account;
+import org.example.bank.storage.Storage;
+import org.example.bank.transactions.DepositTransaction;
+import org.example.bank.transactions.TransactionResult;
+import org.example.bank.transactions.WithdrawTransaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * "Merchant" account hammered by deposits/withdrawals, with and without the
+ * coalescing stage (bank.engine.coalesce). Needs a storage backend (bank.storage): the account ends
+ * with the balance it started with (every withdrawal follows a deposit of the same amount).
+ */
+public class HotAccountDemo {
+
+    private static final int OPERATIONS = 2_000;
+
+    private static void run(String title, boolean coalesce, Account hot) {
+        System.setProperty("bank.engine.coalesce", String.valueOf(coalesce));
+        BankEngine engine = new BankEngine(4);
+
+        List<CompletableFuture<TransactionResult>> futures = new ArrayList<>(OPERATIONS);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            futures.add((i % 2 == 0)
+                    ? engine.submit(new DepositTransaction(hot, 5))
+                    : engine.submit(new WithdrawTransaction(hot, 5)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        long t1 = System.nanoTime();
+
+        int failed = 0;
+        for (CompletableFuture<TransactionResult> f : futures) if (!f.join().isDone()) failed++;
+
+        engine.shutdown();
+
+        double ms = (t1 - t0) / 1_000_000.0;
+        System.out.printf("%-14s %8.1f ms   %,8.0f ops/s   failed=%d   %.1f ops/commit%n",
+                title, ms, OPERATIONS / (ms / 1000.0), failed,
+                coalesce ? engine.coalescingStats().avgOpsPerCommit() : 1.0);
+    }
+
+    public static void main(String[] args) {
+        List<Account> accounts = AccountRepository.shared().findAll();
+        if (accounts.isEmpty()) {
+            System.out.println("No account found.");
+            return;
+        }
+        Account hot = accounts.get(0);
+
+        System.out.println("=== " + OPERATIONS + " deposits/withdrawals on " + hot.getAccountRef() + " ===");
+        run("one by one", false, hot);
+        run("coalesced", true, hot);
+
+        // from the database, not the cache: checks what was persisted
+        System.out.println("Final balance: " + Storage.shared().accounts().findByAccountRef(hot.getAccountRef()).getBalance());
+
+        LedgerWriter.shared().close();
+        DBConnection.shutdown();
+    }
+}
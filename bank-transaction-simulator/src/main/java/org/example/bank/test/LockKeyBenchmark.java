@@ -0,0 +1,121 @@
+package org.example.bank.test;
+
+import org.example.bank.concurrency.LockTable;
+import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lock resolution per submit: old path (reflection + String-keyed map + sort)
+ * vs current path (direct lockIds() call + striped int-keyed LockTable).
+ * No database needed. Prints ns/op and bytes allocated per op (HotSpot only).
+ */
+public class LockKeyBenchmark {
+
+    private static final int WARMUP = 2_000_000;
+    private static final int ITERATIONS = 5_000_000;
+
+    private static final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+    private static final LockTable table = new LockTable(4096, true);
+
+    public static class TransferLikeTx implements Transaction {
+        private final List<String> refs;
+        private final int[] ids;
+
+        public TransferLikeTx(int from, int to) {
+            this.refs = List.of("ACC-" + from, "ACC-" + to);
+            this.ids = new int[]{ from, to };
+        }
+
+        @Override public TransactionResult execute() { return null; }
+
+        @Override public int[] lockIds() { return ids; }
+
+        // what the old engine looked up by reflection
+        public List<String> lockKeys() { return refs; }
+    }
+
+    // ===== OLD PATH (copy of the previous BankEngine code) =====
+    private static int reflective(Transaction tx) throws Exception {
+        Method m;
+        try {
+            m = tx.getClass().getMethod("lockKeys");
+        } catch (NoSuchMethodException ex) {
+            m = tx.getClass().getDeclaredMethod("lockKeys");
+            m.setAccessible(true);
+        }
+        List<String> keys = new ArrayList<>();
+        Object res = m.invoke(tx);
+        if (res instanceof List<?> list) {
+            for (Object o : list) if (o != null) keys.add(o.toString());
+        }
+
+        Set<String> s = new HashSet<>();
+        for (String k : keys) {
+            String t = k.trim();
+            if (!t.isEmpty()) s.add(t);
+        }
+        List<String> clean = new ArrayList<>(s);
+        clean.sort(String::compareTo);
+
+        List<ReentrantLock> out = new ArrayList<>();
+        for (String k : clean) out.add(locks.computeIfAbsent(k, x -> new ReentrantLock(true)));
+        return out.size();
+    }
+
+    // ===== NEW PATH (what BankEngine does now) =====
+    private static int direct(Transaction tx) {
+        int[] ids = tx.lockIds();
+        int a = table.stripeOf(ids[0]);
+        int b = table.stripeOf(ids[1]);
+        return (a != b) ? 2 : 1;
+    }
+
+    private interface Op {
+        int run(Transaction tx) throws Exception;
+    }
+
+    private static void measure(String name, Op op, Transaction[] txs) throws Exception {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) sink += op.run(txs[i & (txs.length - 1)]);
+
+        long bytes0 = allocatedBytes();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) sink += op.run(txs[i & (txs.length - 1)]);
+        long t1 = System.nanoTime();
+        long bytes1 = allocatedBytes();
+
+        System.out.printf("%-12s %8.1f ns/op   %8.1f B/op   (sink=%d)%n",
+                name,
+                (t1 - t0) / (double) ITERATIONS,
+                bytes0 < 0 ? Double.NaN : (bytes1 - bytes0) / (double) ITERATIONS,
+                sink);
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean mx) {
+            return mx.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Transaction[] txs = new Transaction[1024];
+        Random r = new Random(42);
+        for (int i = 0; i < txs.length; i++) {
+            txs[i] = new TransferLikeTx(1 + r.nextInt(100), 1 + r.nextInt(100));
+        }
+
+        System.out.println("=== Lock resolution per submit (" + ITERATIONS + " ops) ===");
+        for (int round = 1; round <= 3; round++) {
+            System.out.println("-- round " + round);
+            measure("reflective", LockKeyBenchmark::reflective, txs);
+            measure("direct", LockKeyBenchmark::direct, txs);
+        }
+    }
+}
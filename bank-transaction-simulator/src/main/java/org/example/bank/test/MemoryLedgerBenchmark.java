@@ -0,0 +1,65 @@
+package org.example.bank.test;
+
+import org.example.bank.dao.LedgerRow;
+import org.example.bank.dao.Page;
+import org.example.bank.model.TransactionRecord;
+import org.example.bank.storage.TransactionStore;
+import org.example.bank.storage.memory.MemoryStores;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills the ledger of the memory backend (PrimitiveLedger) with bank.bench.rows rows (default 10M)
+ * over bank.bench.accounts accounts, then prints the heap per row and the cost of a history page.
+ * No database. About 45 bytes per row: give 100M rows -Xmx6g.
+ */
+public class MemoryLedgerBenchmark {
+
+    private static final int ROWS = Integer.getInteger("bank.bench.rows", 10_000_000);
+    private static final int ACCOUNTS = Integer.getInteger("bank.bench.accounts", 10_000);
+    private static final int BATCH = 1_000;
+
+    public static void main(String[] args) {
+        Runtime rt = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = rt.totalMemory() - rt.freeMemory();
+
+        MemoryStores stores = MemoryStores.empty();
+        TransactionStore ledger = stores.transactions();
+        Random r = new Random(7);
+
+        long t0 = System.nanoTime();
+        List<LedgerRow> batch = new ArrayList<>(BATCH);
+        for (int i = 0; i < ROWS; i++) {
+            String from = "ACC-" + (1 + r.nextInt(ACCOUNTS));
+            String to = "ACC-" + (1 + r.nextInt(ACCOUNTS));
+            batch.add(new LedgerRow("TRANSFER", from, to, 1 + r.nextInt(100), "DONE"));
+            if (batch.size() == BATCH) {
+                ledger.applyNetAndLog(-1, 0, batch); // no such account: rows only
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) ledger.applyNetAndLog(-1, 0, batch);
+        double loadMs = (System.nanoTime() - t0) / 1_000_000.0;
+
+        System.gc();
+        long heap = rt.totalMemory() - rt.freeMemory() - heapBefore;
+        System.out.printf("%,d rows in %.0f ms (%,.0f rows/s), heap %d MB = %.1f bytes/row%n",
+                ROWS, loadMs, ROWS / (loadMs / 1000.0), heap / (1024 * 1024), (double) heap / ROWS);
+
+        // history: first page then 10 pages deep, for random accounts
+        int lookups = 1_000;
+        long rows = 0;
+        t0 = System.nanoTime();
+        for (int i = 0; i < lookups; i++) {
+            String ref = "ACC-" + (1 + r.nextInt(ACCOUNTS));
+            Page<TransactionRecord> page = ledger.findHistoryPage(ref, null, 20);
+            for (int p = 0; p < 10 && page.hasMore(); p++) page = ledger.findHistoryPage(ref, page.nextToken(), 20);
+            rows += page.items().size();
+        }
+        double us = (System.nanoTime() - t0) / 1000.0 / (lookups * 11);
+        System.out.printf("history page of 20 rows: %.1f us (%d rows read)%n", us, rows);
+    }
+}
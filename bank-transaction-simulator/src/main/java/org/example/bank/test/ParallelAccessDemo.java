@@ -2,8 +2,8 @@ package org.example.bank.test;
 
 import org.example.bank.concurrency.BankEngine;
 import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
 
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 
@@ -11,10 +11,13 @@ public class ParallelAccessDemo {
 
     private static final ConcurrentHashMap<String, Integer> balances = new ConcurrentHashMap<>();
 
-    // ✅ MUST be public to avoid reflection access issues
+    // lock ids of the two demo accounts
+    private static final int ACC_A_ID = 1;
+    private static final int ACC_B_ID = 2;
+
     public static class DemoTransaction implements Transaction {
         private final String name;
-        private final List<String> keysToLock;
+        private final int[] idsToLock;
         private final String accountToUpdate;
         private final int delta;
         private final int workMs;
@@ -22,14 +25,14 @@ public class ParallelAccessDemo {
         private final CountDownLatch doneGate;
 
         public DemoTransaction(String name,
-                               List<String> keysToLock,
+                               int[] idsToLock,
                                String accountToUpdate,
                                int delta,
                                int workMs,
                                CountDownLatch startGate,
                                CountDownLatch doneGate) {
             this.name = name;
-            this.keysToLock = keysToLock;
+            this.idsToLock = idsToLock;
             this.accountToUpdate = accountToUpdate;
             this.delta = delta;
             this.workMs = workMs;
@@ -37,13 +40,13 @@ public class ParallelAccessDemo {
             this.doneGate = doneGate;
         }
 
-        // ✅ BankEngine will call this via reflection
-        public List<String> lockKeys() {
-            return keysToLock;
+        @Override
+        public int[] lockIds() {
+            return idsToLock;
         }
 
         @Override
-        public void execute() {
+        public TransactionResult execute() {
             try {
                 startGate.await();
 
@@ -59,9 +62,11 @@ public class ParallelAccessDemo {
                 System.out.println("END    " + name
                         + "   took=" + ((end - start) / 1_000_000) + " ms"
                         + "   newBalance(" + accountToUpdate + ")=" + balances.get(accountToUpdate));
+                return TransactionResult.done();
 
             } catch (Exception e) {
                 System.err.println("ERROR " + name + " : " + e.getMessage());
+                return TransactionResult.failed(e.getMessage());
             } finally {
                 doneGate.countDown();
             }
@@ -108,7 +113,7 @@ public class ParallelAccessDemo {
 
         DemoTransaction p1 = new DemoTransaction(
                 "Tx-1 (locks ACC-A, updates ACC-A)",
-                List.of("ACC-A"),
+                new int[]{ ACC_A_ID },
                 "ACC-A",
                 +10,
                 800,
@@ -118,7 +123,7 @@ public class ParallelAccessDemo {
 
         DemoTransaction p2 = new DemoTransaction(
                 "Tx-2 (locks ACC-B, updates ACC-B)",
-                List.of("ACC-B"),
+                new int[]{ ACC_B_ID },
                 "ACC-B",
                 +20,
                 800,
@@ -135,7 +140,7 @@ public class ParallelAccessDemo {
 
         DemoTransaction s1 = new DemoTransaction(
                 "Tx-3 (locks ACC-A, updates ACC-A)",
-                List.of("ACC-A"),
+                new int[]{ ACC_A_ID },
                 "ACC-A",
                 +1,
                 800,
@@ -145,7 +150,7 @@ public class ParallelAccessDemo {
 
         DemoTransaction s2 = new DemoTransaction(
                 "Tx-4 (locks ACC-A, updates ACC-A)",
-                List.of("ACC-A"),
+                new int[]{ ACC_A_ID },
                 "ACC-A",
                 +1,
                 800,
@@ -160,6 +165,7 @@ public class ParallelAccessDemo {
         System.out.println("ACC-A = " + balances.get("ACC-A"));
         System.out.println("ACC-B = " + balances.get("ACC-B"));
 
+        System.out.println("Lock stats: " + engine.lockStats());
         engine.shutdown();
     }
 }
@@ -2,16 +2,16 @@ package org.example.bank.test;
 
 import org.example.bank.concurrency.BankEngine;
 import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
 
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
-import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 
 public class SameAccountParallelTest {
 
-    private static final ConcurrentHashMap<String, Integer> balances = new ConcurrentHashMap<>();
+    private static final ConcurrentHashMap<Integer, Integer> balances = new ConcurrentHashMap<>();
     private static final DateTimeFormatter F = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
 
     private static String now() {
@@ -20,13 +20,13 @@ public class SameAccountParallelTest {
 
     public static class DemoTx implements Transaction {
         private final String name;
-        private final String acc;
+        private final int acc;
         private final int delta;
         private final int workMs;
         private final CountDownLatch startGate;
         private final CountDownLatch doneGate;
 
-        public DemoTx(String name, String acc, int delta, int workMs,
+        public DemoTx(String name, int acc, int delta, int workMs,
                       CountDownLatch startGate, CountDownLatch doneGate) {
             this.name = name;
             this.acc = acc;
@@ -36,12 +36,13 @@ public class SameAccountParallelTest {
             this.doneGate = doneGate;
         }
 
-        public List<String> lockKeys() {
-            return List.of(acc); // lock on same account => serialized
+        @Override
+        public int[] lockIds() {
+            return new int[]{ acc }; // lock on same account => serialized
         }
 
         @Override
-        public void execute() {
+        public TransactionResult execute() {
             try {
                 startGate.await();
 
@@ -56,10 +57,12 @@ public class SameAccountParallelTest {
                 long end = System.nanoTime();
                 System.out.println(now() + "  END    " + name
                         + "   took=" + ((end - start) / 1_000_000) + " ms"
-                        + "   balance(" + acc + ")=" + balances.get(acc));
+                        + "   balance(ACC-" + acc + ")=" + balances.get(acc));
+                return TransactionResult.done();
 
             } catch (Exception e) {
                 System.err.println(now() + "  ERROR " + name + " : " + e.getMessage());
+                return TransactionResult.failed(e.getMessage());
             } finally {
                 doneGate.countDown();
             }
@@ -68,7 +71,7 @@ public class SameAccountParallelTest {
 
     public static void main(String[] args) throws Exception {
 
-        String ACC = "ACC-1";
+        int ACC = 1; // ACC-1
         balances.put(ACC, 100);
 
         BankEngine engine = new BankEngine(2);
@@ -79,7 +82,7 @@ public class SameAccountParallelTest {
         DemoTx tx1 = new DemoTx("Tx-A (+50)", ACC, +50, 1000, startGate, doneGate);
         DemoTx tx2 = new DemoTx("Tx-B (-30)", ACC, -30, 1000, startGate, doneGate);
 
-        System.out.println("Initial balance(" + ACC + ") = " + balances.get(ACC));
+        System.out.println("Initial balance(ACC-" + ACC + ") = " + balances.get(ACC));
 
         long t0 = System.nanoTime();
 
@@ -93,8 +96,9 @@ public class SameAccountParallelTest {
 
         long t1 = System.nanoTime();
         System.out.println("\nTOTAL time = " + ((t1 - t0) / 1_000_000) + " ms");
-        System.out.println("Final balance(" + ACC + ") = " + balances.get(ACC));
+        System.out.println("Final balance(ACC-" + ACC + ") = " + balances.get(ACC));
 
+        System.out.println("Lock stats: " + engine.lockStats());
         engine.shutdown();
     }
 }
@@ -0,0 +1,80 @@
+package org.example.bank.test;
+
+import org.example.bank.concurrency.BankEngine;
+import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
+
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * LOCKING vs SHARDED engine on an in-memory workload (no database):
+ * many single-account deposits with a little CPU work each.
+ */
+public class ShardedEngineDemo {
+
+    private static final int ACCOUNTS = 1_000;
+    private static final int OPERATIONS = 400_000;
+
+    // balances[id] is only ever written by the thread that owns id (or holds its lock)
+    private static final long[] balances = new long[ACCOUNTS];
+
+    public static class DemoDeposit implements Transaction {
+        private final int[] ids;
+        private final long amount;
+        private final CountDownLatch done;
+
+        public DemoDeposit(int accountId, long amount, CountDownLatch done) {
+            this.ids = new int[]{ accountId };
+            this.amount = amount;
+            this.done = done;
+        }
+
+        @Override
+        public int[] lockIds() {
+            return ids;
+        }
+
+        @Override
+        public TransactionResult execute() {
+            // simulate validation/serialization work
+            long x = amount;
+            for (int i = 0; i < 200; i++) x = x * 31 + i;
+            if (x == 42) System.out.print(""); // keeps the loop alive
+            balances[ids[0]] += amount;
+            done.countDown();
+            return null; // engine reports a plain DONE
+        }
+    }
+
+    private static void run(String title, BankEngine engine) throws Exception {
+        java.util.Arrays.fill(balances, 0);
+        Random r = new Random(7);
+        CountDownLatch done = new CountDownLatch(OPERATIONS);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            engine.submit(new DemoDeposit(r.nextInt(ACCOUNTS), 1, done));
+        }
+        done.await();
+        long t1 = System.nanoTime();
+        engine.shutdown();
+
+        long total = 0;
+        for (long b : balances) total += b;
+
+        double ms = (t1 - t0) / 1_000_000.0;
+        System.out.printf("%-22s %8.1f ms   %,10.0f ops/s   total=%d (expected %d)%n",
+                title, ms, OPERATIONS / (ms / 1000.0), total, OPERATIONS);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.println("=== " + OPERATIONS + " deposits over " + ACCOUNTS + " accounts, " + cores + " cores ===");
+
+        for (int threads : new int[]{ 1, 2, 4, 8 }) {
+            run("LOCKING x" + threads, new BankEngine(threads, BankEngine.Mode.LOCKING));
+            run("SHARDED x" + threads, new BankEngine(threads, BankEngine.Mode.SHARDED));
+        }
+    }
+}
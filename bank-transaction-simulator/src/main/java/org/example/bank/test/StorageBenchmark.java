@@ -0,0 +1,133 @@
+package org.example.bank.test;
+
+import org.example.bank.DBConnection;
+import org.example.bank.auth.Role;
+import org.example.bank.auth.User;
+import org.example.bank.concurrency.BankEngine;
+import org.example.bank.dao.AccountRepository;
+import org.example.bank.dao.LedgerWriter;
+import org.example.bank.model.Account;
+import org.example.bank.storage.Storage;
+import org.example.bank.transactions.DepositTransaction;
+import org.example.bank.transactions.Transaction;
+import org.example.bank.transactions.TransactionResult;
+import org.example.bank.transactions.TransferTransaction;
+import org.example.bank.transactions.WithdrawTransaction;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * BankEngine throughput on the selected storage backend, one backend per run:
+ *   java -Dbank.storage=memory ...   engine alone, no JDBC
+ *   java -Dbank.storage=h2 ...       embedded database, no server
+ *   java -Dbank.storage=mysql ...    MySQL (writes to bank_simulator: accounts and ledger rows are kept)
+ * The backend must be given explicitly: the application default is MySQL.
+ *
+ * Random deposits / withdrawals / transfers (fixed seed) over bank.bench.accounts accounts
+ * (created for the first client if missing), then checks that the store holds the balances the engine computed.
+ */
+public class StorageBenchmark {
+
+    private static final int ACCOUNTS = Integer.getInteger("bank.bench.accounts", 100);
+    private static final int OPERATIONS = Integer.getInteger("bank.bench.operations", 50_000);
+    private static final int THREADS = Integer.getInteger("bank.bench.threads", 8);
+
+    public static void main(String[] args) {
+        if (System.getProperty("bank.storage") == null) {
+            System.out.println("Choose the backend: -Dbank.storage=memory, h2 or mysql.");
+            return;
+        }
+        AccountRepository repository = AccountRepository.shared();
+        List<Account> accounts = accounts(repository);
+        if (accounts.size() < 2) {
+            System.out.println("No client to create the accounts for.");
+            return;
+        }
+
+        BankEngine engine = new BankEngine(THREADS);
+        PrintStream console = System.out;
+        // every transaction prints a line: the console would be the bottleneck
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        // same starting funds on every backend, outside the timing
+        List<CompletableFuture<TransactionResult>> funding = new ArrayList<>();
+        for (Account a : accounts) funding.add(engine.submit(new DepositTransaction(a, 1000)));
+        CompletableFuture.allOf(funding.toArray(CompletableFuture<?>[]::new)).join();
+
+        Random r = new Random(42);
+        List<CompletableFuture<TransactionResult>> futures = new ArrayList<>(OPERATIONS);
+
+        long t0 = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            futures.add(engine.submit(randomTransaction(r, accounts)));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture<?>[]::new)).join();
+        long t1 = System.nanoTime();
+
+        System.setOut(console);
+        engine.shutdown();
+        LedgerWriter.shared().close(); // flush the ledger before reading the store back
+
+        // insufficient funds is a normal FAILED result here (random withdrawals), not an error
+        int insufficient = 0, failed = 0, rejected = 0;
+        for (CompletableFuture<TransactionResult> f : futures) {
+            TransactionResult res = f.join();
+            if (res.getStatus() == TransactionResult.Status.REJECTED) rejected++;
+            else if (res.getStatus() == TransactionResult.Status.FAILED) {
+                if ("Insufficient balance".equals(res.getMessage())) insufficient++;
+                else failed++;
+            }
+        }
+
+        double ms = (t1 - t0) / 1_000_000.0;
+        System.out.printf("%-8s %,d ops on %d accounts, %d threads: %9.1f ms   %,9.0f ops/s   insufficient funds=%d failed=%d rejected=%d%n",
+                Storage.backend(), OPERATIONS, accounts.size(), THREADS, ms, OPERATIONS / (ms / 1000.0),
+                insufficient, failed, rejected);
+
+        // from the store, not the cache: checks what was persisted
+        long memory = 0, stored = 0;
+        for (Account a : accounts) {
+            memory += a.getBalanceCents();
+            Account persisted = Storage.shared().accounts().findById(a.getId());
+            if (persisted != null) stored += persisted.getBalanceCents();
+        }
+        System.out.println((memory == stored ? "OK" : "MISMATCH") + " balances: engine=" + memory + " store=" + stored + " cents");
+
+        DBConnection.shutdown();
+    }
+
+    private static List<Account> accounts(AccountRepository repository) {
+        List<Account> accounts = new ArrayList<>(repository.findAll());
+        if (accounts.size() >= ACCOUNTS) return accounts.subList(0, ACCOUNTS);
+
+        int clientId = -1;
+        for (User u : Storage.shared().users().findAll()) {
+            if (u.getRole() == Role.CLIENT) clientId = u.getId();
+        }
+        if (clientId < 0) return accounts;
+
+        while (accounts.size() < ACCOUNTS) {
+            Account created = repository.createDefaultAccountForUser(clientId);
+            if (created == null) break;
+            accounts.add(created);
+        }
+        return accounts;
+    }
+
+    private static Transaction randomTransaction(Random r, List<Account> accounts) {
+        Account a = accounts.get(r.nextInt(accounts.size()));
+        double amount = 1 + r.nextInt(50);
+        int kind = r.nextInt(3);
+        if (kind == 0) return new DepositTransaction(a, amount);
+        if (kind == 1) return new WithdrawTransaction(a, amount);
+
+        Account b = accounts.get(r.nextInt(accounts.size()));
+        while (b == a) b = accounts.get(r.nextInt(accounts.size()));
+        return new TransferTransaction(a, b, amount);
+    }
+}
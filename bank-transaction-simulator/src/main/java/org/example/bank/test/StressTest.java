@@ -2,7 +2,7 @@ package org.example.bank.test;
 
 import org.example.bank.concurrency.BankEngine;
 import org.example.bank.concurrency.Worker;
-import org.example.bank.dao.AccountDAO;
+import org.example.bank.dao.AccountRepository;
 import org.example.bank.model.Account;
 import org.example.bank.transactions.TransferTransaction;
 
@@ -15,10 +15,8 @@ public class StressTest {
 
         System.out.println("=== STRESS TEST: 50 Concurrent Transfers ===");
 
-        AccountDAO accountDAO = new AccountDAO();
-
-        // Load ALL accounts (admin-level)
-        List<Account> accounts = accountDAO.findAll();
+        // Load ALL accounts (admin-level), live instances
+        List<Account> accounts = AccountRepository.shared().findAll();
 
         if (accounts.size() < 2) {
             System.out.println("Not enough accounts for stress test.");
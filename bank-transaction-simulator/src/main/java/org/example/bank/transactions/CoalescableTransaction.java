@@ -0,0 +1,18 @@
+package org.example.bank.transactions;
+
+import org.example.bank.model.Account;
+
+/**
+ * A single-account balance change (deposit / withdrawal) that BankEngine may merge
+ * with other changes of the same account: applied one by one in memory, in order,
+ * then persisted as one net UPDATE + all ledger rows in a single commit.
+ *
+ * execute() must stay equivalent to applying deltaCents() alone.
+ */
+public interface CoalescableTransaction extends Transaction {
+
+    Account account();
+
+    /** Signed balance change in cents: positive = deposit, negative = withdrawal (refused if funds are insufficient). */
+    long deltaCents();
+}
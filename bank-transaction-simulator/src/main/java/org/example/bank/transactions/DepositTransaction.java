@@ -1,58 +1,99 @@
 package org.example.bank.transactions;
 
-import org.example.bank.dao.AccountDAO;
-import org.example.bank.dao.TransactionDAO;
+import org.example.bank.dao.AccountRepository;
 import org.example.bank.model.Account;
+import org.example.bank.model.Money;
+import org.example.bank.storage.Storage;
+import org.example.bank.storage.TransactionStore;
+import org.example.bank.wal.WriteAheadLog;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
-public class DepositTransaction implements Transaction {
+public class DepositTransaction implements CoalescableTransaction {
 
     private final Account account;
     private final double amount;
+    private final long cents;
+    private final int[] lockIds;
 
-    private final AccountDAO accountDAO = new AccountDAO();
-    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final AccountRepository accountRepository = AccountRepository.shared();
+    private final TransactionStore transactionDAO = Storage.shared().transactions();
 
     public DepositTransaction(Account account, double amount) {
-        this.account = account;
-        this.amount = amount;
+        // the live instance, whatever copy the caller holds
+        this.account = accountRepository.canonical(account);
+        this.cents = Money.toCents(amount);
+        this.amount = Money.toAmount(cents); // DB / ledger get exactly what memory applies
+        this.lockIds = new int[]{ this.account.getId() };
     }
 
+    // lock-free: atomic credit on the live account (see needsLocks())
     @Override
-    public void execute() {
+    public TransactionResult execute() {
 
-        // Log as PENDING
-        int txId = transactionDAO.log(
-                "DEPOSIT",
-                null,
-                account.getAccountRef(),
-                amount
-        );
+        WriteAheadLog wal = WriteAheadLog.active();
+        double newBalance;
+        CompletableFuture<Integer> row;
 
-        try {
-            account.getSemaphore().acquire();
+        if (wal != null) {
+            // WAL mode: logged first, then memory; the database follows at the next checkpoint
+            row = wal.append("DEPOSIT", "DONE", -1, account.getId(), cents);
+            newBalance = Money.toAmount(account.credit(cents));
+        } else {
+            // balance + DONE row in the same group commit, waited for: the live account is credited
+            // only once both are durable (database >= memory, the money cannot be spent before)
+            row = transactionDAO.applyAndLogAsync(account.getId(), amount,
+                    "DEPOSIT", null, account.getAccountRef(), amount);
+            try {
+                row.join();
+            } catch (CompletionException e) {
+                throw new IllegalStateException("Deposit on " + account.getAccountRef() + " not persisted", e.getCause());
+            }
+            newBalance = Money.toAmount(account.credit(cents));
+        }
 
-            double newBalance = account.getBalance() + amount;
+        System.out.println("Deposit successful on "
+                + account.getAccountRef()
+                + ". New balance: " + newBalance);
 
-            accountDAO.updateBalance(account.getId(), newBalance);
-            account.setBalance(newBalance);
+        return TransactionResult.done(-1, Double.NaN, account.getId(), newBalance, -1)
+                .withPendingLedger(row);
+    }
 
-            // Mark DONE
-            transactionDAO.markDone(txId);
+    @Override
+    public boolean onRejected() {
+        TransactionLogging.failed(transactionDAO, "DEPOSIT", null, account, cents);
+        return true;
+    }
 
-            System.out.println("Deposit successful on "
-                    + account.getAccountRef()
-                    + ". New balance: " + newBalance);
+    @Override
+    public Account account() {
+        return account;
+    }
 
-        } catch (InterruptedException e) {
-            System.out.println("Deposit interrupted");
-        } finally {
-            account.getSemaphore().release();
-        }
+    @Override
+    public long deltaCents() {
+        return cents;
+    }
+
+    @Override
+    public long amountCents() {
+        return cents;
+    }
+
+    @Override
+    public boolean needsLocks() {
+        return false;
     }
+
+    @Override
+    public String ledgerType() {
+        return "DEPOSIT";
+    }
+
     @Override
-    public List<String> lockKeys() {
-        return List.of(account.getAccountRef());
+    public int[] lockIds() {
+        return lockIds;
     }
 }
@@ -1,9 +1,43 @@
 package org.example.bank.transactions;
 
-import java.util.List;
-
 public interface Transaction {
-    void execute();
-    List<String> lockKeys();
+
+    /**
+     * Called by BankEngine while it holds the locks of every id in lockIds().
+     * The result completes the future returned by BankEngine.submit.
+     */
+    TransactionResult execute();
+
+    /**
+     * Ids of the accounts to lock before execute() (any order, duplicates allowed).
+     * Called on every submit: return an array precomputed in the constructor.
+     */
+    int[] lockIds();
+
+    /**
+     * False if execute() is safe without the engine's account locks (CAS on the Account balance).
+     * lockIds() is still used to route the transaction in SHARDED mode.
+     */
+    default boolean needsLocks() {
+        return true;
+    }
+
+    /**
+     * BankEngine refused it (submission queue full): record the failure, do not execute.
+     * @return true if a FAILED ledger row was recorded
+     */
+    default boolean onRejected() {
+        return false;
+    }
+
+    /** Ledger type (DEPOSIT, WITHDRAW or TRANSFER) reported to engine listeners; null for internal tasks. */
+    default String ledgerType() {
+        return null;
+    }
+
+    /** Amount moved, in cents, reported to engine listeners. */
+    default long amountCents() {
+        return 0;
+    }
 
 }
@@ -0,0 +1,32 @@
+package org.example.bank.transactions;
+
+import org.example.bank.model.Account;
+import org.example.bank.model.Money;
+import org.example.bank.storage.TransactionStore;
+import org.example.bank.wal.WriteAheadLog;
+
+final class TransactionLogging {
+
+    private TransactionLogging() {
+    }
+
+    // used with CompletableFuture.exceptionally(...) on group-committed ledger rows
+    static Integer ledgerError(Throwable t) {
+        System.err.println("[Ledger] row not persisted: " + t.getMessage());
+        return -1;
+    }
+
+    // FAILED ledger row: into the WAL when it is on, otherwise group-committed
+    static void failed(TransactionStore transactionDAO, String type, Account from, Account to, long cents) {
+        WriteAheadLog wal = WriteAheadLog.active();
+        if (wal != null) {
+            wal.append(type, "FAILED", from == null ? -1 : from.getId(), to == null ? -1 : to.getId(), cents);
+            return;
+        }
+        transactionDAO.logAsync(type,
+                        from == null ? null : from.getAccountRef(),
+                        to == null ? null : to.getAccountRef(),
+                        Money.toAmount(cents), "FAILED")
+                .exceptionally(TransactionLogging::ledgerError);
+    }
+}
@@ -0,0 +1,146 @@
+package org.example.bank.transactions;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Outcome of a transaction, delivered by the future returned from BankEngine.submit.
+ * Balances are the in-memory balances right after the operation (NaN when not applicable).
+ */
+public final class TransactionResult {
+
+    public enum Status { DONE, FAILED, REJECTED }
+
+    private final Status status;
+    private final String message;
+    private final int fromAccountId;
+    private final int toAccountId;
+    private final double fromBalance;
+    private final double toBalance;
+    private final int ledgerId;
+    private final long queuedNanos;
+    private final long executionNanos;
+
+    // a ledger row (DONE or FAILED) was written for this outcome; not for engine / batch errors
+    private final boolean ledgerRow;
+
+    // group-committed ledger row, not durable yet (resolved by BankEngine)
+    private final CompletableFuture<Integer> pendingLedger;
+
+    private TransactionResult(Status status, String message,
+                              int fromAccountId, int toAccountId,
+                              double fromBalance, double toBalance,
+                              int ledgerId, CompletableFuture<Integer> pendingLedger,
+                              long queuedNanos, long executionNanos, boolean ledgerRow) {
+        this.status = status;
+        this.message = message;
+        this.fromAccountId = fromAccountId;
+        this.toAccountId = toAccountId;
+        this.fromBalance = fromBalance;
+        this.toBalance = toBalance;
+        this.ledgerId = ledgerId;
+        this.pendingLedger = pendingLedger;
+        this.queuedNanos = queuedNanos;
+        this.executionNanos = executionNanos;
+        this.ledgerRow = ledgerRow;
+    }
+
+    // ---------- FACTORIES ----------
+    public static TransactionResult done() {
+        return new TransactionResult(Status.DONE, "OK", -1, -1, Double.NaN, Double.NaN, -1, null, 0, 0, false);
+    }
+
+    public static TransactionResult done(int fromAccountId, double fromBalance,
+                                         int toAccountId, double toBalance,
+                                         int ledgerId) {
+        return new TransactionResult(Status.DONE, "OK", fromAccountId, toAccountId,
+                fromBalance, toBalance, ledgerId, null, 0, 0, true);
+    }
+
+    public static TransactionResult failed(String message) {
+        return new TransactionResult(Status.FAILED, message, -1, -1, Double.NaN, Double.NaN, -1, null, 0, 0, false);
+    }
+
+    public static TransactionResult rejected(String message) {
+        return new TransactionResult(Status.REJECTED, message, -1, -1, Double.NaN, Double.NaN, -1, null, 0, 0, false);
+    }
+
+    // ---------- COPIES ----------
+    public TransactionResult withPendingLedger(CompletableFuture<Integer> row) {
+        return new TransactionResult(status, message, fromAccountId, toAccountId,
+                fromBalance, toBalance, ledgerId, row, queuedNanos, executionNanos, ledgerRow);
+    }
+
+    public TransactionResult withLedgerId(int id) {
+        return new TransactionResult(status, message, fromAccountId, toAccountId,
+                fromBalance, toBalance, id, null, queuedNanos, executionNanos, ledgerRow);
+    }
+
+    public TransactionResult withTimings(long queuedNanos, long executionNanos) {
+        return new TransactionResult(status, message, fromAccountId, toAccountId,
+                fromBalance, toBalance, ledgerId, pendingLedger, queuedNanos, executionNanos, ledgerRow);
+    }
+
+    /** Same outcome, with its FAILED ledger row recorded (TransactionLogging.failed). */
+    public TransactionResult withLedgerRow() {
+        return new TransactionResult(status, message, fromAccountId, toAccountId,
+                fromBalance, toBalance, ledgerId, pendingLedger, queuedNanos, executionNanos, true);
+    }
+
+    // ---------- GETTERS ----------
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isDone() {
+        return status == Status.DONE;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public int getFromAccountId() {
+        return fromAccountId;
+    }
+
+    public int getToAccountId() {
+        return toAccountId;
+    }
+
+    public double getFromBalance() {
+        return fromBalance;
+    }
+
+    public double getToBalance() {
+        return toBalance;
+    }
+
+    /** Ledger row id, -1 if unknown. */
+    public int getLedgerId() {
+        return ledgerId;
+    }
+
+    public boolean hasLedgerRow() {
+        return ledgerRow;
+    }
+
+    public CompletableFuture<Integer> getPendingLedger() {
+        return pendingLedger;
+    }
+
+    public long getQueuedNanos() {
+        return queuedNanos;
+    }
+
+    public long getExecutionNanos() {
+        return executionNanos;
+    }
+
+    @Override
+    public String toString() {
+        return status + " (" + message + ")"
+                + " ledgerId=" + ledgerId
+                + " queued=" + (queuedNanos / 1000) + "us"
+                + " exec=" + (executionNanos / 1000) + "us";
+    }
+}
@@ -1,79 +1,136 @@
 package org.example.bank.transactions;
 
-import org.example.bank.dao.AccountDAO;
-import org.example.bank.dao.TransactionDAO;
+import org.example.bank.dao.AccountRepository;
 import org.example.bank.model.Account;
+import org.example.bank.model.Money;
+import org.example.bank.storage.Storage;
+import org.example.bank.storage.TransactionStore;
+import org.example.bank.wal.WriteAheadLog;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-public class TransferTransaction implements Transaction {
+public class TransferTransaction implements TwoPhaseTransaction {
 
     private final Account from;
     private final Account to;
     private final double amount;
+    private final long cents;
+    private final int[] lockIds;
 
-    private final AccountDAO accountDAO = new AccountDAO();
-    private final TransactionDAO transactionDAO = new TransactionDAO();
+    // set by debit(), read by credit() (the shard hand-off publishes them)
+    private int ledgerId = -1;
+    private long fromBalanceAfter;
+    private CompletableFuture<Integer> walRecord; // WAL mode only
+
+    private final TransactionStore transactionDAO = Storage.shared().transactions();
 
     public TransferTransaction(Account from, Account to, double amount) {
-        this.from = from;
-        this.to = to;
-        this.amount = amount;
+        // the live instances, whatever copies the caller holds
+        this.from = AccountRepository.shared().canonical(from);
+        this.to = AccountRepository.shared().canonical(to);
+        this.cents = Money.toCents(amount);
+        this.amount = Money.toAmount(cents); // DB / ledger get exactly what memory applies
+        this.lockIds = new int[]{ this.from.getId(), this.to.getId() };
     }
 
+    // runs under the BankEngine locks of both accounts
     @Override
-    public void execute() {
+    public TransactionResult execute() {
+        TransactionResult r = debit();
+        return (r != null) ? r : credit();
+    }
 
-        // Log transaction as PENDING
-        int txId = transactionDAO.log(
-                "TRANSFER",
-                from.getAccountRef(),
-                to.getAccountRef(),
-                amount
-        );
+    @Override
+    public int debitAccountId() {
+        return from.getId();
+    }
 
-        Account first = from.getId() < to.getId() ? from : to;
-        Account second = from.getId() < to.getId() ? to : from;
+    @Override
+    public int creditAccountId() {
+        return to.getId();
+    }
 
-        try {
-            first.getSemaphore().acquire();
-            second.getSemaphore().acquire();
+    /**
+     * Phase 1 (owner of "from"): check funds and persist the whole transfer
+     * (one JDBC transaction, or one WAL record when the WAL is on).
+     * The persisted side is complete after this, credit() only updates "to" in memory.
+     */
+    @Override
+    public TransactionResult debit() {
+
+        // reserve the amount first (CAS, never negative): lock-free withdrawals may run meanwhile
+        long after = from.tryDebit(cents);
+        if (after == Account.INSUFFICIENT_FUNDS) {
+            System.out.println("Transfer failed: insufficient balance");
+            TransactionLogging.failed(transactionDAO, "TRANSFER", from, to, cents);
+            return TransactionResult.failed("Insufficient balance").withLedgerRow();
+        }
 
-            if (from.getBalance() < amount) {
-                System.out.println("Transfer failed: insufficient balance");
-                transactionDAO.markFailed(txId);
-                return;
+        WriteAheadLog wal = WriteAheadLog.active();
+        if (wal != null) {
+            try {
+                walRecord = wal.append("TRANSFER", "DONE", from.getId(), to.getId(), cents);
+            } catch (RuntimeException e) {
+                from.credit(cents); // not logged: give the reservation back
+                throw e;
             }
+            fromBalanceAfter = after;
+            return null;
+        }
+
+        // debit + credit + ledger row => one JDBC transaction, one commit
+        int txId = transactionDAO.executeTransfer(
+                from.getId(), from.getAccountRef(),
+                to.getId(), to.getAccountRef(),
+                amount
+        );
 
-            double newFromBalance = from.getBalance() - amount;
-            double newToBalance = to.getBalance() + amount;
+        if (txId < 0) {
+            from.credit(cents); // give the reservation back
+            System.out.println("Transfer failed: rejected by database");
+            TransactionLogging.failed(transactionDAO, "TRANSFER", from, to, cents);
+            return TransactionResult.failed("Rejected by database").withLedgerRow();
+        }
 
-            accountDAO.updateBalance(from.getId(), newFromBalance);
-            accountDAO.updateBalance(to.getId(), newToBalance);
+        fromBalanceAfter = after;
+        ledgerId = txId;
+        return null;
+    }
 
-            from.setBalance(newFromBalance);
-            to.setBalance(newToBalance);
+    // Phase 2 (owner of "to")
+    @Override
+    public TransactionResult credit() {
+        long toBalance = to.credit(cents);
+
+        System.out.println("Transfer successful: "
+                + amount + " from "
+                + from.getAccountRef()
+                + " to "
+                + to.getAccountRef());
+
+        TransactionResult result = TransactionResult.done(from.getId(), Money.toAmount(fromBalanceAfter),
+                to.getId(), Money.toAmount(toBalance), ledgerId);
+        return (walRecord != null) ? result.withPendingLedger(walRecord) : result;
+    }
 
-            //  Mark transaction as DONE
-            transactionDAO.markDone(txId);
+    @Override
+    public boolean onRejected() {
+        TransactionLogging.failed(transactionDAO, "TRANSFER", from, to, cents);
+        return true;
+    }
 
-            System.out.println("Transfer successful: "
-                    + amount + " from "
-                    + from.getAccountRef()
-                    + " to "
-                    + to.getAccountRef());
+    @Override
+    public String ledgerType() {
+        return "TRANSFER";
+    }
 
-        } catch (InterruptedException e) {
-            System.out.println("Transfer interrupted");
-            transactionDAO.markFailed(txId);
-        } finally {
-            second.getSemaphore().release();
-            first.getSemaphore().release();
-        }
+    @Override
+    public long amountCents() {
+        return cents;
     }
 
     @Override
-    public List<String> lockKeys() {
-        return List.of(from.getAccountRef(), to.getAccountRef());
+    public int[] lockIds() {
+        return lockIds;
     }
 }
@@ -0,0 +1,22 @@
+package org.example.bank.transactions;
+
+/**
+ * A transaction that can be split between two single-writer shards:
+ * debit() runs on the thread owning the debited account, then credit()
+ * runs on the thread owning the credited account.
+ *
+ * execute() must stay equivalent to:
+ *   TransactionResult r = debit(); return (r != null) ? r : credit();
+ */
+public interface TwoPhaseTransaction extends Transaction {
+
+    int debitAccountId();
+
+    int creditAccountId();
+
+    /** Phase 1. Returns null to continue with credit(), or the final result if it stops here (e.g. insufficient funds). */
+    TransactionResult debit();
+
+    /** Phase 2, only called after a successful debit(). Returns the final result. */
+    TransactionResult credit();
+}
@@ -1,64 +1,108 @@
 package org.example.bank.transactions;
 
-import org.example.bank.dao.AccountDAO;
-import org.example.bank.dao.TransactionDAO;
+import org.example.bank.dao.AccountRepository;
 import org.example.bank.model.Account;
+import org.example.bank.model.Money;
+import org.example.bank.storage.Storage;
+import org.example.bank.storage.TransactionStore;
+import org.example.bank.wal.WriteAheadLog;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-public class WithdrawTransaction implements Transaction {
+public class WithdrawTransaction implements CoalescableTransaction {
 
     private final Account account;
     private final double amount;
+    private final long cents;
+    private final int[] lockIds;
 
-    private final AccountDAO accountDAO = new AccountDAO();
-    private final TransactionDAO transactionDAO = new TransactionDAO();
+    private final AccountRepository accountRepository = AccountRepository.shared();
+    private final TransactionStore transactionDAO = Storage.shared().transactions();
 
     public WithdrawTransaction(Account account, double amount) {
-        this.account = account;
-        this.amount = amount;
+        // the live instance, whatever copy the caller holds
+        this.account = accountRepository.canonical(account);
+        this.cents = Money.toCents(amount);
+        this.amount = Money.toAmount(cents); // DB / ledger get exactly what memory applies
+        this.lockIds = new int[]{ this.account.getId() };
     }
 
+    // lock-free: conditional CAS debit on the live account (see needsLocks())
     @Override
-    public void execute() {
-
-        // Log as PENDING
-        int txId = transactionDAO.log(
-                "WITHDRAW",
-                account.getAccountRef(),
-                null,
-                amount
-        );
-
-        try {
-            account.getSemaphore().acquire();
-
-            if (account.getBalance() < amount) {
-                System.out.println("Insufficient balance");
-                return;
-            }
+    public TransactionResult execute() {
 
-            double newBalance = account.getBalance() - amount;
+        WriteAheadLog wal = WriteAheadLog.active();
 
-            accountDAO.updateBalance(account.getId(), newBalance);
-            account.setBalance(newBalance);
+        // reserved in memory (never goes negative), then persisted: group commit or WAL
+        long after = account.tryDebit(cents);
 
-            // Mark DONE
-            transactionDAO.markDone(txId);
+        if (after == Account.INSUFFICIENT_FUNDS) {
+            System.out.println("Insufficient balance");
+            TransactionLogging.failed(transactionDAO, "WITHDRAW", account, null, cents);
+            return TransactionResult.failed("Insufficient balance").withLedgerRow();
+        }
 
-            System.out.println("Withdrawal successful from "
-                    + account.getAccountRef()
-                    + ". New balance: " + newBalance);
+        double newBalance = Money.toAmount(after);
+        CompletableFuture<Integer> row;
 
-        } catch (InterruptedException e) {
-            System.out.println("Withdrawal interrupted");
-        } finally {
-            account.getSemaphore().release();
+        if (wal != null) {
+            try {
+                row = wal.append("WITHDRAW", "DONE", account.getId(), -1, cents);
+            } catch (RuntimeException e) {
+                account.credit(cents); // not logged: give the reservation back
+                throw e;
+            }
+        } else {
+            // debit + DONE row in the same group commit (database stays >= memory until then).
+            // Neither written: the withdrawal did not happen, give the reservation back
+            row = transactionDAO
+                    .applyAndLogAsync(account.getId(), -amount, "WITHDRAW", account.getAccountRef(), null, amount)
+                    .whenComplete((id, err) -> {
+                        if (err != null) account.credit(cents);
+                    });
         }
+
+        System.out.println("Withdrawal successful from "
+                + account.getAccountRef()
+                + ". New balance: " + newBalance);
+
+        return TransactionResult.done(account.getId(), newBalance, -1, Double.NaN, -1)
+                .withPendingLedger(row);
+    }
+
+    @Override
+    public boolean onRejected() {
+        TransactionLogging.failed(transactionDAO, "WITHDRAW", account, null, cents);
+        return true;
+    }
+
+    @Override
+    public Account account() {
+        return account;
+    }
+
+    @Override
+    public long deltaCents() {
+        return -cents;
+    }
+
+    @Override
+    public long amountCents() {
+        return cents;
+    }
+
+    @Override
+    public boolean needsLocks() {
+        return false;
+    }
+
+    @Override
+    public String ledgerType() {
+        return "WITHDRAW";
     }
 
     @Override
-    public List<String> lockKeys() {
-        return List.of(account.getAccountRef());
+    public int[] lockIds() {
+        return lockIds;
     }
 }
@@ -2,10 +2,11 @@ package org.example.bank.ui.admin;
 
 import org.example.bank.auth.User;
 import org.example.bank.concurrency.BankEngine;
-import org.example.bank.dao.AccountDAO;
-import org.example.bank.dao.TransactionDAO;
+import org.example.bank.dao.AccountRepository;
 import org.example.bank.model.Account;
+import org.example.bank.storage.TransactionStore;
 import org.example.bank.transactions.DepositTransaction;
+import org.example.bank.transactions.TransactionResult;
 import org.example.bank.transactions.TransferTransaction;
 import org.example.bank.transactions.WithdrawTransaction;
 
@@ -15,23 +16,24 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public class AccountsManagementPanel extends JPanel {
 
     private final JFrame owner;
     private final User currentUser;
-    private final AccountDAO accountDAO;
-    private final TransactionDAO transactionDAO;
+    private final AccountRepository accountRepository;
+    private final TransactionStore transactionDAO;
     private final BankEngine engine;
 
     private JTable table;
     private DefaultTableModel model;
 
-    public AccountsManagementPanel(JFrame owner, User currentUser, AccountDAO accountDAO,
-                                   TransactionDAO transactionDAO, BankEngine engine) {
+    public AccountsManagementPanel(JFrame owner, User currentUser, AccountRepository accountRepository,
+                                   TransactionStore transactionDAO, BankEngine engine) {
         this.owner = owner;
         this.currentUser = currentUser;
-        this.accountDAO = accountDAO;
+        this.accountRepository = accountRepository;
         this.transactionDAO = transactionDAO;
         this.engine = engine;
 
@@ -54,7 +56,10 @@ public class AccountsManagementPanel extends JPanel {
         title.setFont(new Font("Segoe UI", Font.BOLD, 16));
 
         JButton refresh = buttonClientStyle("Refresh", "🔄");
-        refresh.addActionListener(e -> refresh());
+        refresh.addActionListener(e -> {
+            accountRepository.reload(); // comptes créés ailleurs
+            refresh();
+        });
 
         top.add(title, BorderLayout.WEST);
         top.add(refresh, BorderLayout.EAST);
@@ -98,10 +103,7 @@ public class AccountsManagementPanel extends JPanel {
         if (amount == null) return;
 
         // ✅ vraie transaction
-        engine.submit(new DepositTransaction(acc, amount));
-        JOptionPane.showMessageDialog(owner, "Deposit submitted ✅", "OK", JOptionPane.INFORMATION_MESSAGE);
-
-        refreshLater();
+        whenFinished(engine.submit(new DepositTransaction(acc, amount)), "Deposit");
     }
 
     private void doWithdraw() {
@@ -111,10 +113,7 @@ public class AccountsManagementPanel extends JPanel {
         Double amount = askAmount("Withdraw - Amount");
         if (amount == null) return;
 
-        engine.submit(new WithdrawTransaction(acc, amount));
-        JOptionPane.showMessageDialog(owner, "Withdraw submitted ✅", "OK", JOptionPane.INFORMATION_MESSAGE);
-
-        refreshLater();
+        whenFinished(engine.submit(new WithdrawTransaction(acc, amount)), "Withdraw");
     }
 
     private void doTransfer() {
@@ -122,27 +121,40 @@ public class AccountsManagementPanel extends JPanel {
         if (from == null) return;
 
         // Choisir compte destination
-        List<Account> all = accountDAO.findAll();
+        List<Account> all = accountRepository.findAll();
         Account to = chooseAccountDialog(all, from);
         if (to == null) return;
 
         Double amount = askAmount("Transfer - Amount");
         if (amount == null) return;
 
-        engine.submit(new TransferTransaction(from, to, amount));
-        JOptionPane.showMessageDialog(owner, "Transfer submitted ✅", "OK", JOptionPane.INFORMATION_MESSAGE);
-
-        refreshLater();
+        whenFinished(engine.submit(new TransferTransaction(from, to, amount)), "Transfer");
     }
 
     // ===================== HELPERS =====================
 
-    private void refreshLater() {
-        // petite attente pour laisser le worker exécuter
-        new javax.swing.Timer(400, e -> {
-            refresh();
-            ((javax.swing.Timer) e.getSource()).stop();
-        }).start();
+    // callback du moteur (thread worker) -> EDT, quand la transaction est vraiment terminée
+    private void whenFinished(CompletableFuture<TransactionResult> future, String what) {
+        future.thenAccept(r -> SwingUtilities.invokeLater(() -> {
+            if (!r.isDone()) {
+                JOptionPane.showMessageDialog(owner, what + " failed: " + r.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            // ✅ les nouveaux soldes sont dans le résultat : on met à jour les lignes, sans findAll()
+            updateBalanceRow(r.getFromAccountId(), r.getFromBalance());
+            updateBalanceRow(r.getToAccountId(), r.getToBalance());
+            JOptionPane.showMessageDialog(owner, what + " done ✅", "OK", JOptionPane.INFORMATION_MESSAGE);
+        }));
+    }
+
+    private void updateBalanceRow(int accountId, double balance) {
+        if (accountId < 0) return;
+        for (int row = 0; row < model.getRowCount(); row++) {
+            if (Integer.parseInt(model.getValueAt(row, 0).toString()) == accountId) {
+                model.setValueAt(balance, row, 3);
+                return;
+            }
+        }
     }
 
     private Account getSelectedAccountOrWarn() {
@@ -156,7 +168,7 @@ public class AccountsManagementPanel extends JPanel {
     }
 
     private Optional<Account> findAccountById(int id) {
-        return accountDAO.findAll().stream().filter(a -> a.getId() == id).findFirst();
+        return Optional.ofNullable(accountRepository.findById(id));
     }
 
     private Double askAmount(String title) {
@@ -201,7 +213,7 @@ public class AccountsManagementPanel extends JPanel {
 
     private void refresh() {
         model.setRowCount(0);
-        List<Account> list = accountDAO.findAll();
+        List<Account> list = accountRepository.findAll();
         for (Account a : list) {
             // ✅ USER_ID doit venir de l'objet Account (pas a.getId())
             model.addRow(new Object[]{a.getId(), a.getId(), a.getAccountRef(), a.getBalance()});
@@ -2,10 +2,11 @@ package org.example.bank.ui.admin;
 
 import org.example.bank.auth.User;
 import org.example.bank.concurrency.BankEngine;
-import org.example.bank.dao.AccountDAO;
-import org.example.bank.dao.TransactionDAO;
-import org.example.bank.dao.UserDAO;
-import org.example.bank.model.Account;
+import org.example.bank.dao.AccountRepository;
+import org.example.bank.dao.DashboardStats;
+import org.example.bank.model.Money;
+import org.example.bank.stats.LiveStats;
+import org.example.bank.storage.TransactionStore;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -13,14 +14,15 @@ import javax.swing.plaf.basic.BasicScrollBarUI;
 import java.awt.*;
 import java.util.*;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class AdminDashboardPanel extends JPanel {
 
     private final JFrame owner;
     private final User user;
-    private final AccountDAO accountDAO;
-    private final TransactionDAO transactionDAO;
+    private final AccountRepository accountRepository;
+    private final TransactionStore transactionDAO;
+    // live KPIs while the dashboard is on screen
+    private final javax.swing.Timer statsTimer = new javax.swing.Timer(1000, e -> refreshStats());
     private final BankEngine engine;
 
     private final Runnable onExit;
@@ -61,14 +63,14 @@ public class AdminDashboardPanel extends JPanel {
 
     public AdminDashboardPanel(JFrame owner,
                                User user,
-                               AccountDAO accountDAO,
-                               TransactionDAO transactionDAO,
+                               AccountRepository accountRepository,
+                               TransactionStore transactionDAO,
                                BankEngine engine,
                                Runnable onExit,
                                Runnable onSignOut) {
         this.owner = owner;
         this.user = user;
-        this.accountDAO = accountDAO;
+        this.accountRepository = accountRepository;
         this.transactionDAO = transactionDAO;
         this.engine = engine;
         this.onExit = onExit;
@@ -213,9 +215,9 @@ public class AdminDashboardPanel extends JPanel {
         tabs.setFont(f(Font.BOLD, BASE));
 
         tabs.addTab("📊 Stats", buildStatsPage());
-        tabs.addTab("👥 Users", new UsersManagementPanel(owner, user, accountDAO, transactionDAO, engine));
-        tabs.addTab("💳 Accounts", new AccountsManagementPanel(owner, user, accountDAO, transactionDAO, engine));
-        tabs.addTab("🧾 Transactions", new TransactionsManagementPanel(owner, user, accountDAO, transactionDAO, engine));
+        tabs.addTab("👥 Users", new UsersManagementPanel(owner, user, accountRepository, transactionDAO, engine));
+        tabs.addTab("💳 Accounts", new AccountsManagementPanel(owner, user, accountRepository, transactionDAO, engine));
+        tabs.addTab("🧾 Transactions", new TransactionsManagementPanel(owner, user, accountRepository, transactionDAO, engine));
 
         main.add(tabs, BorderLayout.CENTER);
         return main;
@@ -259,74 +261,41 @@ public class AdminDashboardPanel extends JPanel {
         return page;
     }
 
-    // ================= REFRESH (STREAMS) =================
-    private void refreshStats() {
-        long usersCount = new UserDAO().countUsers();
-        List<Account> accounts = accountDAO.findAll();
-        List<String> history = transactionDAO.findAllHistoryLines();
-
-        long accountsCount = accounts.size();
-        double balanceSum = accounts.stream().mapToDouble(Account::getBalance).sum();
-        long txCount = history.size();
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        statsTimer.start();
+    }
 
-        totalUsers.setText(kpiHtml("Total Users", String.valueOf(usersCount)));
-        totalAccounts.setText(kpiHtml("Total Accounts", String.valueOf(accountsCount)));
-        totalBalance.setText(kpiHtml("Total Balance", String.format("%.2f DH", balanceSum)));
-        totalTx.setText(kpiHtml("Total Transactions", String.valueOf(txCount)));
+    @Override
+    public void removeNotify() {
+        statsTimer.stop();
+        super.removeNotify();
+    }
 
-        Map<String, Long> byType = history.stream()
-                .map(this::extractType)
-                .filter(s -> !s.isBlank())
-                .collect(Collectors.groupingBy(s -> s, Collectors.counting()));
+    // ================= REFRESH =================
+    private void refreshStats() {
+        // in-memory counters, no query: cheap enough to run every second
+        DashboardStats stats = LiveStats.shared().snapshot(8);
+        if (stats == null) return;
 
-        Map<String, Long> byStatus = history.stream()
-                .map(this::extractStatus)
-                .filter(s -> !s.isBlank())
-                .collect(Collectors.groupingBy(s -> s, Collectors.counting()));
+        totalUsers.setText(kpiHtml("Total Users", String.valueOf(stats.users())));
+        totalAccounts.setText(kpiHtml("Total Accounts", String.valueOf(stats.accounts())));
+        totalBalance.setText(kpiHtml("Total Balance", Money.format(stats.balanceCents())));
+        totalTx.setText(kpiHtml("Total Transactions", String.valueOf(stats.transactions())));
 
-        pieByType.setData(byType);
-        barByStatus.setData(byStatus);
+        pieByType.setData(stats.byType());
+        barByStatus.setData(stats.byStatus());
 
         pieByType.repaint();
         barByStatus.repaint();
 
         // ===== Top Clients (group by USER_ID) =====
-        Map<Integer, String> userNames = new UserDAO().findAll().stream()
-                .collect(Collectors.toMap(User::getId, User::getUsername, (a, b) -> a));
-
-        Map<Integer, Double> totalByUser = accounts.stream()
-                .collect(Collectors.groupingBy(Account::getId, Collectors.summingDouble(Account::getBalance)));
-
-        Map<Integer, Long> countByUser = accounts.stream()
-                .collect(Collectors.groupingBy(Account::getId, Collectors.counting()));
-
         topClientsModel.clear();
-        totalByUser.entrySet().stream()
-                .sorted((a, b) -> Double.compare(b.getValue(), a.getValue()))
-                .limit(8)
-                .forEach(e -> {
-                    int userId = e.getKey();
-                    String name = userNames.getOrDefault(userId, "User#" + userId);
-                    double sum = e.getValue();
-                    long nb = countByUser.getOrDefault(userId, 0L);
-                    topClientsModel.addElement("• " + name + "  |  " + String.format("%.2f DH", sum) + "  |  " + nb + " accounts");
-                });
-    }
-
-    private String extractType(String line) {
-        try {
-            String[] p = line.split("\\s\\|\\s");
-            if (p.length >= 2) return p[1].trim().toUpperCase();
-        } catch (Exception ignored) {}
-        return "";
-    }
-
-    private String extractStatus(String line) {
-        try {
-            String[] p = line.split("\\s\\|\\s");
-            if (p.length >= 5) return p[4].trim().toUpperCase();
-        } catch (Exception ignored) {}
-        return "";
+        for (DashboardStats.TopClient c : stats.topClients()) {
+            topClientsModel.addElement("• " + c.username() + "  |  " + Money.format(c.balanceCents())
+                    + "  |  " + c.accounts() + " accounts");
+        }
     }
 
     // ================= UI HELPERS =================
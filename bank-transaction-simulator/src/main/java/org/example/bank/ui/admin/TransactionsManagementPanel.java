@@ -2,31 +2,42 @@ package org.example.bank.ui.admin;
 
 import org.example.bank.auth.User;
 import org.example.bank.concurrency.BankEngine;
-import org.example.bank.dao.AccountDAO;
-import org.example.bank.dao.TransactionDAO;
+import org.example.bank.dao.AccountRepository;
+import org.example.bank.dao.Page;
+import org.example.bank.model.TransactionRecord;
+import org.example.bank.storage.TransactionStore;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
-import java.util.List;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 
 public class TransactionsManagementPanel extends JPanel {
 
+    private static final int PAGE_SIZE = 100;
+    private static final DateTimeFormatter DATE_TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
     private final JFrame owner;
     private final User user;
-    private final AccountDAO accountDAO;
-    private final TransactionDAO transactionDAO;
+    private final AccountRepository accountRepository;
+    private final TransactionStore transactionDAO;
     private final BankEngine engine;
 
     private JTable table;
     private DefaultTableModel model;
 
-    public TransactionsManagementPanel(JFrame owner, User user, AccountDAO accountDAO,
-                                       TransactionDAO transactionDAO, BankEngine engine) {
+    // next page of the history, null once everything is shown
+    private String nextToken;
+
+    public TransactionsManagementPanel(JFrame owner, User user, AccountRepository accountRepository,
+                                       TransactionStore transactionDAO, BankEngine engine) {
         this.owner = owner;
         this.user = user;
-        this.accountDAO = accountDAO;
+        this.accountRepository = accountRepository;
         this.transactionDAO = transactionDAO;
         this.engine = engine;
 
@@ -63,21 +74,43 @@ public class TransactionsManagementPanel extends JPanel {
         table = new JTable(model);
         table.setRowHeight(26);
 
-        return new JScrollPane(table);
+        JScrollPane scroll = new JScrollPane(table);
+
+        // next page only when the user reaches the bottom
+        scroll.getVerticalScrollBar().addAdjustmentListener(e -> {
+            BoundedRangeModel bar = scroll.getVerticalScrollBar().getModel();
+            if (!e.getValueIsAdjusting() && nextToken != null
+                    && bar.getValue() + bar.getExtent() >= bar.getMaximum()) {
+                loadNextPage();
+            }
+        });
+
+        return scroll;
     }
 
     private void refresh() {
+        nextToken = null; // before clearing: the scroll bar jumps to the bottom
         model.setRowCount(0);
+        addPage(transactionDAO.findAllHistoryPage(null, PAGE_SIZE));
+    }
 
-        List<String> lines = transactionDAO.findAllHistoryLines();
-        for (String line : lines) {
-            // expected: created_at | type | from -> to | amount | status
-            String[] p = line.split("\\s\\|\\s");
-            if (p.length >= 5) {
-                model.addRow(new Object[]{p[0], p[1], p[2], p[3], p[4]});
-            } else {
-                model.addRow(new Object[]{line, "", "", "", ""});
-            }
+    private void loadNextPage() {
+        String token = nextToken;
+        nextToken = null; // no second request while this one runs
+        addPage(transactionDAO.findAllHistoryPage(token, PAGE_SIZE));
+    }
+
+    private void addPage(Page<TransactionRecord> page) {
+        nextToken = page.nextToken();
+
+        for (TransactionRecord r : page.items()) {
+            model.addRow(new Object[]{
+                    DATE_TIME.format(Instant.ofEpochMilli(r.createdAtMillis())),
+                    r.type(),
+                    r.fromRef() + " -> " + r.toRef(),
+                    r.amount(),
+                    r.status()
+            });
         }
     }
 }
\ No newline at end of file
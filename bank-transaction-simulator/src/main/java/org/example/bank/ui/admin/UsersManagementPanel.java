@@ -2,9 +2,11 @@ package org.example.bank.ui.admin;
 
 import org.example.bank.auth.User;
 import org.example.bank.concurrency.BankEngine;
-import org.example.bank.dao.AccountDAO;
-import org.example.bank.dao.TransactionDAO;
-import org.example.bank.dao.UserDAO;
+import org.example.bank.dao.AccountRepository;
+import org.example.bank.stats.LiveStats;
+import org.example.bank.storage.Storage;
+import org.example.bank.storage.TransactionStore;
+import org.example.bank.storage.UserStore;
 
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
@@ -16,8 +18,8 @@ public class UsersManagementPanel extends JPanel {
 
     private final JFrame owner;
     private final User currentUser;
-    private final AccountDAO accountDAO;
-    private final TransactionDAO transactionDAO;
+    private final AccountRepository accountRepository;
+    private final TransactionStore transactionDAO;
     private final BankEngine engine;
 
     private JTable table;
@@ -33,11 +35,11 @@ public class UsersManagementPanel extends JPanel {
     private static final String FONT = "Segoe UI";
     private static final String EMOJI_FONT = "Segoe UI Emoji";
 
-    public UsersManagementPanel(JFrame owner, User currentUser, AccountDAO accountDAO,
-                                TransactionDAO transactionDAO, BankEngine engine) {
+    public UsersManagementPanel(JFrame owner, User currentUser, AccountRepository accountRepository,
+                                TransactionStore transactionDAO, BankEngine engine) {
         this.owner = owner;
         this.currentUser = currentUser;
-        this.accountDAO = accountDAO;
+        this.accountRepository = accountRepository;
         this.transactionDAO = transactionDAO;
         this.engine = engine;
 
@@ -103,7 +105,7 @@ public class UsersManagementPanel extends JPanel {
     private void refresh() {
         model.setRowCount(0);
 
-        List<User> users = new UserDAO().findAll();
+        List<User> users = Storage.shared().users().findAll();
         for (User u : users) {
             model.addRow(new Object[]{u.getId(), u.getUsername(), u.getRole()});
         }
@@ -158,7 +160,7 @@ public class UsersManagementPanel extends JPanel {
             return;
         }
 
-        UserDAO userDAO = new UserDAO();
+        UserStore userDAO = Storage.shared().users();
         if (userDAO.usernameExists(username)) {
             JOptionPane.showMessageDialog(owner, "Username already exists.", "Error", JOptionPane.ERROR_MESSAGE);
             return;
@@ -173,7 +175,10 @@ public class UsersManagementPanel extends JPanel {
         }
 
         // ✅ default bank account for BOTH (client/admin) to avoid empty dashboard
-        boolean okAcc = accountDAO.createDefaultAccountForUser(newId);
+        boolean okAcc = accountRepository.createDefaultAccountForUser(newId) != null;
+
+        LiveStats.shared().userCreated(newId, username);
+        if (okAcc) LiveStats.shared().accountCreated(newId);
 
         if (okAcc) {
             JOptionPane.showMessageDialog(owner, "User + default account created ✅", "Success", JOptionPane.INFORMATION_MESSAGE);
@@ -205,7 +210,7 @@ public class UsersManagementPanel extends JPanel {
         // Optional: prevent deleting the last admin
         // (simple check: if role is ADMIN and only 1 admin exists)
         if ("ADMIN".equalsIgnoreCase(role)) {
-            long admins = new UserDAO().findAll().stream()
+            long admins = Storage.shared().users().findAll().stream()
                     .filter(u -> u.getRole() != null && u.getRole().toString().equalsIgnoreCase("ADMIN"))
                     .count();
             if (admins <= 1) {
@@ -223,9 +228,11 @@ public class UsersManagementPanel extends JPanel {
         );
         if (confirm != JOptionPane.YES_OPTION) return;
 
-        boolean ok = new UserDAO().deleteUserCascade(userId);
+        boolean ok = Storage.shared().users().deleteUserCascade(userId);
 
         if (ok) {
+            accountRepository.evictUser(userId);
+            LiveStats.shared().userDeleted(userId);
             JOptionPane.showMessageDialog(owner, "Utilisateur supprimé ✅", "Success", JOptionPane.INFORMATION_MESSAGE);
             refresh();
         } else {
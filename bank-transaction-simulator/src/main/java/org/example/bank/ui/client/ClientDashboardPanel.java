@@ -2,10 +2,14 @@ package org.example.bank.ui.client;
 
 import org.example.bank.auth.User;
 import org.example.bank.concurrency.BankEngine;
-import org.example.bank.dao.AccountDAO;
-import org.example.bank.dao.TransactionDAO;
+import org.example.bank.dao.AccountRepository;
+import org.example.bank.dao.Page;
 import org.example.bank.model.Account;
+import org.example.bank.model.Money;
+import org.example.bank.model.TransactionRecord;
+import org.example.bank.storage.TransactionStore;
 import org.example.bank.transactions.DepositTransaction;
+import org.example.bank.transactions.TransactionResult;
 import org.example.bank.transactions.TransferTransaction;
 import org.example.bank.transactions.WithdrawTransaction;
 
@@ -15,17 +19,19 @@ import javax.swing.plaf.basic.BasicScrollBarUI;
 import java.awt.*;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.time.LocalDateTime;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public class ClientDashboardPanel extends JPanel {
 
     // ---- deps
     private final JFrame owner;
     private final User user;
-    private final AccountDAO accountDAO;
-    private final TransactionDAO transactionDAO;
+    private final AccountRepository accountRepository;
+    private final TransactionStore transactionDAO;
     private final BankEngine engine;
     private final Runnable onExit;
 
@@ -38,6 +44,11 @@ public class ClientDashboardPanel extends JPanel {
     private DefaultListModel<HistoryItem> historyModel;
     private JList<HistoryItem> historyList;
 
+    // history is fetched page by page as the list is scrolled
+    private static final int HISTORY_PAGE_SIZE = 30;
+    private String historyRef;
+    private String historyNextToken; // null once everything is shown
+
     // ---- Theme
     private static final Color BG = Color.WHITE;
     private static final Color PANEL = new Color(248, 249, 250);
@@ -50,7 +61,8 @@ public class ClientDashboardPanel extends JPanel {
     private static final Color SUCCESS = new Color(52, 199, 89);
     private static final Color BORDER = new Color(222, 226, 230);
 
-    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss");
+    private static final DateTimeFormatter DATE_TIME_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
 
     // ---- Fonts
     private static final String FONT = "Segoe UI";
@@ -65,14 +77,14 @@ public class ClientDashboardPanel extends JPanel {
 
     public ClientDashboardPanel(JFrame owner,
                                 User user,
-                                AccountDAO accountDAO,
-                                TransactionDAO transactionDAO,
+                                AccountRepository accountRepository,
+                                TransactionStore transactionDAO,
                                 BankEngine engine,
                                 Runnable onExit, Runnable onSignOut) {
 
         this.owner = owner;
         this.user = user;
-        this.accountDAO = accountDAO;
+        this.accountRepository = accountRepository;
         this.transactionDAO = transactionDAO;
         this.engine = engine;
         this.onExit = onExit;
@@ -270,6 +282,13 @@ public class ClientDashboardPanel extends JPanel {
 
         JScrollBar vertical = scroll.getVerticalScrollBar();
         vertical.setUI(new ModernScrollBarUI());
+        vertical.addAdjustmentListener(e -> {
+            BoundedRangeModel bar = vertical.getModel();
+            if (!e.getValueIsAdjusting() && historyNextToken != null
+                    && bar.getValue() + bar.getExtent() >= bar.getMaximum()) {
+                loadMoreHistory();
+            }
+        });
 
         panel.add(header, BorderLayout.NORTH);
         panel.add(scroll, BorderLayout.CENTER);
@@ -423,9 +442,7 @@ public class ClientDashboardPanel extends JPanel {
         double amount = askAmount("Enter deposit amount (DH):");
         if (amount <= 0) return;
 
-        engine.submit(new DepositTransaction(acc, amount));
-        showMessage("Deposit submitted successfully.");
-        delayedRefresh();
+        whenFinished(engine.submit(new DepositTransaction(acc, amount)), "Deposit");
     }
 
     private void withdraw() {
@@ -435,9 +452,7 @@ public class ClientDashboardPanel extends JPanel {
         double amount = askAmount("Enter withdrawal amount (DH):");
         if (amount <= 0) return;
 
-        engine.submit(new WithdrawTransaction(acc, amount));
-        showMessage("Withdrawal submitted successfully.");
-        delayedRefresh();
+        whenFinished(engine.submit(new WithdrawTransaction(acc, amount)), "Withdrawal");
     }
 
     private void transfer() {
@@ -488,7 +503,7 @@ public class ClientDashboardPanel extends JPanel {
         String toRef = toRefField.getText().trim();
         if (toRef.isEmpty()) { showError("Please enter target account number."); return; }
 
-        Account to = accountDAO.findByAccountRef(toRef);
+        Account to = accountRepository.findByAccountRef(toRef);
         if (to == null) { showError("Account not found: " + toRef); return; }
 
         if (to.getAccountRef().equals(from.getAccountRef())) {
@@ -502,14 +517,12 @@ public class ClientDashboardPanel extends JPanel {
 
         if (amount <= 0) { showError("Amount must be greater than 0."); return; }
 
-        engine.submit(new TransferTransaction(from, to, amount));
-        showMessage("Transfer submitted successfully.");
-        delayedRefresh();
+        whenFinished(engine.submit(new TransferTransaction(from, to, amount)), "Transfer");
     }
 
     // ================== DATA ==================
     private void refreshAccounts(boolean firstTime) {
-        List<Account> list = accountDAO.findByUserId(user.getId());
+        List<Account> list = accountRepository.findByUserId(user.getId());
         Account previouslySelected = (Account) accountBox.getSelectedItem();
 
         DefaultComboBoxModel<Account> model = new DefaultComboBoxModel<>();
@@ -531,6 +544,7 @@ public class ClientDashboardPanel extends JPanel {
     }
 
     private void refreshHistory() {
+        historyNextToken = null; // before clearing: the scroll bar jumps
         historyModel.clear();
 
         Account acc = (Account) accountBox.getSelectedItem();
@@ -539,67 +553,47 @@ public class ClientDashboardPanel extends JPanel {
             return;
         }
 
-        List<String> history = transactionDAO.findHistoryByAccountRef(acc.getAccountRef());
-        if (history == null || history.isEmpty()) {
+        // first page only: older rows are loaded when the user scrolls down
+        historyRef = acc.getAccountRef();
+        Page<TransactionRecord> page = transactionDAO.findHistoryPage(historyRef, null, HISTORY_PAGE_SIZE);
+        if (page.items().isEmpty()) {
             historyModel.addElement(HistoryItem.raw("No transactions found yet."));
             return;
         }
 
-        for (String line : history) historyModel.addElement(parseHistory(line));
+        addHistoryPage(page);
     }
 
-    private HistoryItem parseHistory(String line) {
-        try {
-            String[] parts = line.split("\\|");
-            if (parts.length >= 5) {
-                String createdAt = parts[0].trim();
-                String type = parts[1].trim();
-                String route = parts[2].trim();
-                String amountStr = parts[3].trim();
-                String status = parts[4].trim();
-
-                String from = "";
-                String to = "";
-
-                String[] rt = route.split("->");
-                if (rt.length == 2) {
-                    from = safeEndpoint(rt[0]);
-                    to = safeEndpoint(rt[1]);
-                } else {
-                    from = safeEndpoint(route);
-                }
+    private void loadMoreHistory() {
+        String token = historyNextToken;
+        historyNextToken = null; // no second request while this one runs
+        addHistoryPage(transactionDAO.findHistoryPage(historyRef, token, HISTORY_PAGE_SIZE));
+    }
 
-                double amount = 0.0;
-                try { amount = Double.parseDouble(amountStr); } catch (Exception ignored) {}
+    private void addHistoryPage(Page<TransactionRecord> page) {
+        for (TransactionRecord r : page.items()) historyModel.addElement(HistoryItem.of(r));
+        historyNextToken = page.nextToken();
+    }
 
-                if ("DEPOSIT".equalsIgnoreCase(type)) {
-                    if (from.isBlank()) from = "Cash";
-                    if (to.isBlank()) to = "Your account";
-                } else if ("WITHDRAW".equalsIgnoreCase(type)) {
-                    if (to.isBlank()) to = "Cash";
-                    if (from.isBlank()) from = "Your account";
-                }
+    // engine callback (worker thread) -> EDT, once the transaction is finished and its ledger row durable
+    private void whenFinished(CompletableFuture<TransactionResult> future, String what) {
+        future.thenAccept(r -> SwingUtilities.invokeLater(() -> onFinished(r, what)));
+    }
 
-                return new HistoryItem(createdAt, type, from, to, amount, status, line);
-            }
-        } catch (Exception ignored) {}
+    private void onFinished(TransactionResult r, String what) {
+        if (!r.isDone()) {
+            showError(what + " failed: " + r.getMessage());
+            return;
+        }
 
-        return HistoryItem.raw(line);
-    }
+        // the combo holds the live accounts (AccountRepository): already up to date, just repaint
+        accountBox.repaint();
 
-    private String safeEndpoint(String s) {
-        if (s == null) return "";
-        String t = s.trim();
-        if (t.equalsIgnoreCase("null") || t.equalsIgnoreCase("none")) return "";
-        return t;
-    }
+        Account selected = (Account) accountBox.getSelectedItem();
+        if (selected != null) showBalance(selected.getBalance());
+        refreshHistory();
 
-    private void delayedRefresh() {
-        new Timer(500, e -> {
-            ((Timer) e.getSource()).stop();
-            refreshAccounts(false);
-            refreshHistory();
-        }).start();
+        showMessage(what + " completed successfully.");
     }
 
     // ================== HELPERS ==================
@@ -651,14 +645,11 @@ public class ClientDashboardPanel extends JPanel {
             return;
         }
 
-        Account fresh = accountDAO.findByAccountRef(selected.getAccountRef());
-        if (fresh == null) {
-            balanceLabel.setText("0.00 DH");
-            balanceLabel.setForeground(MUTED);
-            return;
-        }
+        // live account from the repository: no DB round trip
+        showBalance(selected.getBalance());
+    }
 
-        double bal = fresh.getBalance();
+    private void showBalance(double bal) {
         balanceLabel.setText(String.format("%.2f DH", bal));
 
         if (bal < 0) balanceLabel.setForeground(DANGER);
@@ -696,31 +687,26 @@ public class ClientDashboardPanel extends JPanel {
     }
 
     // ================== INNER CLASSES ==================
+    // a ledger row, or a plain message ("No transactions found yet.")
     private static class HistoryItem {
-        final String createdAt;
-        final String type;
-        final String from;
-        final String to;
-        final double amount;
-        final String status;
+        final TransactionRecord record;
         final String raw;
 
-        HistoryItem(String createdAt, String type, String from, String to, double amount, String status, String raw) {
-            this.createdAt = createdAt;
-            this.type = type;
-            this.from = from;
-            this.to = to;
-            this.amount = amount;
-            this.status = status;
+        private HistoryItem(TransactionRecord record, String raw) {
+            this.record = record;
             this.raw = raw;
         }
 
+        static HistoryItem of(TransactionRecord record) {
+            return new HistoryItem(record, null);
+        }
+
         static HistoryItem raw(String raw) {
-            return new HistoryItem("", "", "", "", 0.0, "", raw);
+            return new HistoryItem(null, raw);
         }
 
         boolean isRawOnly() {
-            return (type == null || type.isBlank()) && (raw != null && !raw.isBlank());
+            return record == null;
         }
     }
 
@@ -788,35 +774,34 @@ public class ClientDashboardPanel extends JPanel {
                 return this;
             }
 
-            String t = value.type == null ? "" : value.type.toUpperCase();
+            TransactionRecord r = value.record;
 
-            String icon = "•";
-            String label = "Transaction";
-            Color c = MUTED;
+            String icon;
+            String label;
+            Color c;
 
-            switch (t) {
-                case "DEPOSIT" -> { icon = "➕"; label = "Deposit"; c = SUCCESS; }
-                case "WITHDRAW" -> { icon = "➖"; label = "Withdraw"; c = WARNING; }
-                case "TRANSFER" -> { icon = "🔁"; label = "Transfer"; c = ACCENT; }
-                default -> { icon = "•"; label = value.type; c = MUTED; }
+            switch (r.type()) {
+                case DEPOSIT -> { icon = "➕"; label = "Deposit"; c = SUCCESS; }
+                case WITHDRAW -> { icon = "➖"; label = "Withdraw"; c = WARNING; }
+                default -> { icon = "🔁"; label = "Transfer"; c = ACCENT; }
             }
 
             titleLbl.setText(icon + "  " + label);
             titleLbl.setForeground(c);
 
-            String from = (value.from == null || value.from.isBlank()) ? "—" : value.from;
-            String to = (value.to == null || value.to.isBlank()) ? "—" : value.to;
+            String from = (r.fromRef() == null) ? "—" : r.fromRef();
+            String to = (r.toRef() == null) ? "—" : r.toRef();
 
-            if ("DEPOSIT".equalsIgnoreCase(t)) routeLbl.setText("To: " + to);
-            else if ("WITHDRAW".equalsIgnoreCase(t)) routeLbl.setText("From: " + from);
-            else routeLbl.setText(from + "  →  " + to);
+            switch (r.type()) {
+                case DEPOSIT -> routeLbl.setText("To: " + to);
+                case WITHDRAW -> routeLbl.setText("From: " + from);
+                default -> routeLbl.setText(from + "  →  " + to);
+            }
 
-            amountLbl.setText(String.format("%.2f DH", value.amount));
+            amountLbl.setText(Money.format(r.amountCents()));
             amountLbl.setForeground(c);
 
-            String when = value.createdAt;
-            if (when == null || when.isBlank()) when = LocalDateTime.now().format(TIME_FORMAT);
-            timeLbl.setText(when);
+            timeLbl.setText(DATE_TIME_FORMAT.format(Instant.ofEpochMilli(r.createdAtMillis())));
 
             return this;
         }
@@ -0,0 +1,159 @@
+package org.example.bank.wal;
+
+import org.example.bank.dao.LedgerRow;
+import org.example.bank.model.Account;
+import org.example.bank.model.Money;
+import org.example.bank.storage.AccountStore;
+import org.example.bank.storage.Storage;
+import org.example.bank.storage.TransactionStore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings the database up to date with the durable part of the WAL.
+ *
+ * Every {@code intervalMs} the records written since the last checkpoint are folded into one
+ * balance delta per account plus their ledger rows, and applied with TransactionStore.applyWalCheckpoint
+ * together with the new WAL position (one commit). The same code replays the tail at startup.
+ */
+class WalCheckpointer {
+
+    // records per commit, a long replay is split in several checkpoints
+    private static final int MAX_RECORDS = 50_000;
+
+    private final WriteAheadLog wal;
+    private final long intervalMs;
+    private final TransactionStore transactionDAO = Storage.shared().transactions();
+    private final AccountStore accountDAO = Storage.shared().accounts();
+
+    // id -> account_ref, straight from the database: the repository must not be loaded before the replay
+    private final Map<Integer, String> refs = new HashMap<>();
+
+    private volatile long checkpointLsn;
+    private Thread thread;
+    private volatile boolean running = true;
+
+    WalCheckpointer(WriteAheadLog wal, long intervalMs) {
+        this.wal = wal;
+        this.intervalMs = Math.max(10, intervalMs);
+
+        this.checkpointLsn = transactionDAO.findWalCheckpoint();
+        if (checkpointLsn < 0) {
+            // starting anyway could apply records twice
+            throw new IllegalStateException("Cannot read the WAL checkpoint from the database");
+        }
+    }
+
+    long checkpointLsn() {
+        return checkpointLsn;
+    }
+
+    void start() {
+        thread = new Thread(this::runLoop, "wal-checkpointer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void runLoop() {
+        while (running) {
+            try {
+                Thread.sleep(intervalMs);
+            } catch (InterruptedException e) {
+                break; // close()
+            }
+            try {
+                checkpoint(wal.durableLsn());
+            } catch (RuntimeException e) {
+                e.printStackTrace(); // retried at the next run
+            }
+        }
+    }
+
+    /**
+     * Apply every record up to {@code upTo} (a durable position).
+     * @return false if the database rejected a batch (retried at the next run)
+     */
+    synchronized boolean checkpoint(long upTo) {
+        while (checkpointLsn < upTo) {
+            long to = Math.min(upTo, checkpointLsn + (long) MAX_RECORDS * WalRecord.SIZE);
+            List<WalRecord> records = wal.read(checkpointLsn, to);
+            long end = checkpointLsn + (long) records.size() * WalRecord.SIZE;
+            if (records.isEmpty()) return false;
+
+            if (!apply(records, end)) {
+                System.err.println("[WAL] checkpoint at " + end + " failed, will retry");
+                return false;
+            }
+            checkpointLsn = end;
+            wal.deleteSegmentsBefore(end);
+        }
+        return true;
+    }
+
+    private boolean apply(List<WalRecord> records, long end) {
+        loadRefs(records);
+
+        Map<Integer, Long> deltas = new LinkedHashMap<>();
+        List<LedgerRow> rows = new ArrayList<>(records.size());
+
+        for (WalRecord r : records) {
+            String fromRef = ref(r.fromId());
+            String toRef = ref(r.toId());
+
+            if (r.status() == WalRecord.DONE) {
+                if (fromRef != null) deltas.merge(r.fromId(), -r.cents(), Long::sum);
+                if (toRef != null) deltas.merge(r.toId(), r.cents(), Long::sum);
+            }
+            rows.add(new LedgerRow(r.typeName(), fromRef, toRef,
+                    Money.toAmount(r.cents()), r.statusName(), r.timestampMillis()));
+        }
+
+        Map<Integer, Double> balanceDeltas = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Long> d : deltas.entrySet()) {
+            if (d.getValue() != 0) balanceDeltas.put(d.getKey(), Money.toAmount(d.getValue()));
+        }
+        return transactionDAO.applyWalCheckpoint(balanceDeltas, rows, end);
+    }
+
+    // accounts not seen yet (created since the last lookup): one multi-get for the whole batch
+    private void loadRefs(List<WalRecord> records) {
+        Set<Integer> unknown = new HashSet<>();
+        for (WalRecord r : records) {
+            if (r.fromId() >= 0 && !refs.containsKey(r.fromId())) unknown.add(r.fromId());
+            if (r.toId() >= 0 && !refs.containsKey(r.toId())) unknown.add(r.toId());
+        }
+        if (unknown.isEmpty()) return;
+
+        int[] ids = unknown.stream().mapToInt(Integer::intValue).toArray();
+        for (Account a : accountDAO.findByIds(ids)) refs.put(a.getId(), a.getAccountRef());
+    }
+
+    // null for -1, and for an account deleted since the record was written
+    private String ref(int accountId) {
+        if (accountId < 0) return null;
+
+        String ref = refs.get(accountId);
+        if (ref == null) System.err.println("[WAL] account " + accountId + " no longer exists, record kept without it");
+        return ref;
+    }
+
+    /** Last checkpoint, with everything the syncer made durable. */
+    void close() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        checkpoint(wal.durableLsn());
+    }
+}
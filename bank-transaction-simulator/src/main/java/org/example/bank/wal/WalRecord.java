@@ -0,0 +1,89 @@
+package org.example.bank.wal;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+/**
+ * One committed operation in the write-ahead log, fixed 32-byte binary layout:
+ *
+ *   type(1) status(1) reserved(2) fromId(4) toId(4) cents(8) timestampMillis(8) crc32(4)
+ *
+ * fromId / toId are -1 when not applicable. A record with type 0 or a bad CRC marks the end of the log.
+ */
+public record WalRecord(byte type, byte status, int fromId, int toId, long cents, long timestampMillis) {
+
+    public static final int SIZE = 32;
+    private static final int BODY = SIZE - 4;
+
+    public static final byte DEPOSIT = 1;
+    public static final byte WITHDRAW = 2;
+    public static final byte TRANSFER = 3;
+
+    public static final byte DONE = 1;
+    public static final byte FAILED = 2;
+
+    public static byte typeCode(String type) {
+        return switch (type) {
+            case "DEPOSIT" -> DEPOSIT;
+            case "WITHDRAW" -> WITHDRAW;
+            case "TRANSFER" -> TRANSFER;
+            default -> throw new IllegalArgumentException("Unknown transaction type: " + type);
+        };
+    }
+
+    public static byte statusCode(String status) {
+        return "FAILED".equals(status) ? FAILED : DONE;
+    }
+
+    public String typeName() {
+        return switch (type) {
+            case DEPOSIT -> "DEPOSIT";
+            case WITHDRAW -> "WITHDRAW";
+            default -> "TRANSFER";
+        };
+    }
+
+    public String statusName() {
+        return status == FAILED ? "FAILED" : "DONE";
+    }
+
+    // no WalRecord allocated on the append path
+    static void write(ByteBuffer buf, byte type, byte status, int fromId, int toId, long cents, long timestampMillis) {
+        int start = buf.position();
+        buf.put(type);
+        buf.put(status);
+        buf.putShort((short) 0);
+        buf.putInt(fromId);
+        buf.putInt(toId);
+        buf.putLong(cents);
+        buf.putLong(timestampMillis);
+        buf.putInt(crc(buf, start));
+    }
+
+    /** Reads the record at buf.position() (advances it), or returns null at the end of the log. */
+    static WalRecord read(ByteBuffer buf) {
+        if (buf.remaining() < SIZE) return null;
+
+        int start = buf.position();
+        byte type = buf.get(start);
+        if (type < DEPOSIT || type > TRANSFER) return null;
+        if (buf.getInt(start + BODY) != crc(buf, start)) return null; // torn write
+
+        WalRecord r = new WalRecord(
+                type,
+                buf.get(start + 1),
+                buf.getInt(start + 4),
+                buf.getInt(start + 8),
+                buf.getLong(start + 12),
+                buf.getLong(start + 20)
+        );
+        buf.position(start + SIZE);
+        return r;
+    }
+
+    private static int crc(ByteBuffer buf, int start) {
+        CRC32 crc = new CRC32();
+        crc.update(buf.duplicate().position(start).limit(start + BODY));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,319 @@
+package org.example.bank.wal;
+
+import org.example.bank.storage.Storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only, memory-mapped write-ahead log for the engine (optional persistence mode).
+ *
+ * Transactions append one {@link WalRecord} per operation and update memory; the database is
+ * brought up to date in the background by {@link WalCheckpointer}. One syncer thread forces the
+ * mapped segment every {@code syncMs} (group fsync): every append waiting on it becomes durable at once.
+ *
+ * The log is a sequence of fixed-size segment files wal-00000000.log, wal-00000001.log, ...
+ * A position (LSN) is segment number * segment size + offset in the segment.
+ *
+ * Enabled with JVM system properties:
+ *   bank.wal.dir           directory of the segment files (WAL off when not set)
+ *   bank.wal.segmentMb     segment size                      (default 64)
+ *   bank.wal.syncMs        group fsync interval              (default 2)
+ *   bank.wal.checkpointMs  database checkpoint interval      (default 500)
+ */
+public class WriteAheadLog implements AutoCloseable {
+
+    private static volatile WriteAheadLog active;
+
+    /** The log transactions write to, or null when the WAL is off (database write-through). */
+    public static WriteAheadLog active() {
+        return active;
+    }
+
+    /**
+     * Open the WAL if bank.wal.dir is set: replays the tail not checkpointed yet, then starts
+     * the syncer and the checkpointer. Must run before accounts are loaded (AccountRepository).
+     * @throws IllegalStateException if the log or the database checkpoint cannot be read
+     */
+    public static synchronized WriteAheadLog openFromProperties() {
+        String dir = System.getProperty("bank.wal.dir");
+        if (dir == null || dir.isBlank() || active != null) return active;
+        if (Storage.backend() == Storage.Backend.MEMORY) {
+            // nothing survives the JVM anyway: a log would only slow the engine down
+            System.out.println("[WAL] bank.wal.dir ignored with the memory storage backend");
+            return null;
+        }
+
+        long segmentBytes = Long.getLong("bank.wal.segmentMb", 64L) * 1024 * 1024;
+        WriteAheadLog wal = new WriteAheadLog(Path.of(dir), segmentBytes, Long.getLong("bank.wal.syncMs", 2L));
+        wal.recover(new WalCheckpointer(wal, Long.getLong("bank.wal.checkpointMs", 500L)));
+        active = wal;
+        return wal;
+    }
+
+    /** Final fsync and checkpoint, then back to database write-through. */
+    public static synchronized void closeActive() {
+        if (active == null) return;
+        active.close();
+        active = null;
+    }
+
+    private static final class Waiter {
+        final long lsn;
+        final CompletableFuture<Integer> durable = new CompletableFuture<>();
+
+        Waiter(long lsn) {
+            this.lsn = lsn;
+        }
+    }
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final long syncNanos;
+
+    // guarded by this
+    private MappedByteBuffer segment;
+    private long segmentNo;
+    private long writeLsn;
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    private volatile long durableLsn;
+    private volatile boolean running = true;
+    private Thread syncer;
+    private WalCheckpointer checkpointer;
+
+    WriteAheadLog(Path dir, long segmentBytes, long syncMs) {
+        this.dir = dir;
+        // whole records only: a record never spans two segments
+        this.segmentBytes = Math.max(1, segmentBytes / WalRecord.SIZE) * WalRecord.SIZE;
+        this.syncNanos = Math.max(1, syncMs) * 1_000_000L;
+    }
+
+    // ---------- APPEND ----------
+
+    /**
+     * Append one operation (ids -1 when not applicable). Memory may be updated right after:
+     * the record is replayed at startup if the process dies before the next checkpoint.
+     * @return completes (with -1: ledger ids are assigned at checkpoint) once the record is on disk
+     * @throws UncheckedIOException if the next segment cannot be created (nothing was written)
+     */
+    public CompletableFuture<Integer> append(String type, String status, int fromId, int toId, long cents) {
+        byte t = WalRecord.typeCode(type);
+        byte s = WalRecord.statusCode(status);
+        long now = System.currentTimeMillis();
+
+        Waiter w;
+        synchronized (this) {
+            if (!running) throw new IllegalStateException("WAL is closed");
+            if (!segment.hasRemaining()) rotate();
+
+            WalRecord.write(segment, t, s, fromId, toId, cents, now);
+            writeLsn += WalRecord.SIZE;
+            w = new Waiter(writeLsn);
+            waiters.add(w);
+        }
+        // no wake-up here: the syncer's next tick covers every record appended meanwhile
+        return w.durable;
+    }
+
+    public long durableLsn() {
+        return durableLsn;
+    }
+
+    // caller holds the monitor
+    private void rotate() {
+        segment.force(); // the old segment is complete and durable before anything lands in the next one
+        try {
+            segment = map(segmentNo + 1);
+            segmentNo++;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create WAL segment " + (segmentNo + 1), e);
+        }
+    }
+
+    // ---------- GROUP FSYNC ----------
+
+    private void syncLoop() {
+        while (running) {
+            LockSupport.parkNanos(syncNanos);
+            sync();
+        }
+        sync();
+    }
+
+    private void sync() {
+        MappedByteBuffer buf;
+        long target;
+        synchronized (this) {
+            target = writeLsn;
+            buf = segment;
+        }
+        if (target == durableLsn) return;
+
+        try {
+            // older segments were forced by rotate()
+            buf.force();
+        } catch (RuntimeException e) {
+            System.err.println("[WAL] fsync failed, retrying: " + e.getMessage());
+            return;
+        }
+        durableLsn = target;
+
+        List<Waiter> done = new ArrayList<>();
+        synchronized (this) {
+            while (!waiters.isEmpty() && waiters.peek().lsn <= target) done.add(waiters.poll());
+        }
+        for (Waiter w : done) w.durable.complete(-1);
+    }
+
+    // ---------- READ (checkpointer / recovery) ----------
+
+    /** Valid records between two positions, read from the files (not the mapped buffer). */
+    List<WalRecord> read(long fromLsn, long toLsn) {
+        List<WalRecord> records = new ArrayList<>((int) Math.min(1 << 16, (toLsn - fromLsn) / WalRecord.SIZE));
+        long lsn = fromLsn;
+        while (lsn < toLsn) {
+            long segNo = lsn / segmentBytes;
+            long offset = lsn % segmentBytes;
+            int length = (int) Math.min(segmentBytes - offset, toLsn - lsn);
+
+            ByteBuffer buf = ByteBuffer.allocate(length);
+            try (FileChannel ch = FileChannel.open(segmentPath(segNo), StandardOpenOption.READ)) {
+                while (buf.hasRemaining() && ch.read(buf, offset + buf.position()) > 0) {
+                    // keep reading
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buf.flip();
+
+            WalRecord r;
+            while ((r = WalRecord.read(buf)) != null) records.add(r);
+            if (buf.hasRemaining()) break; // end of the valid log
+
+            lsn += length;
+        }
+        return records;
+    }
+
+    /** Segment files entirely before a checkpointed position are not needed anymore. */
+    void deleteSegmentsBefore(long lsn) {
+        long last = lsn / segmentBytes;
+        for (long segNo : segmentNumbers()) {
+            if (segNo >= last) break;
+            try {
+                Files.deleteIfExists(segmentPath(segNo));
+            } catch (IOException e) {
+                System.err.println("[WAL] cannot delete segment " + segNo + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // ---------- RECOVERY ----------
+
+    private void recover(WalCheckpointer checkpointer) {
+        try {
+            Files.createDirectories(dir);
+
+            long start = checkpointer.checkpointLsn();
+            long end = scanEnd(start);
+
+            if (end > start) {
+                System.out.println("[WAL] replaying " + (end - start) / WalRecord.SIZE + " record(s) after the last checkpoint");
+                if (!checkpointer.checkpoint(end)) {
+                    throw new IllegalStateException("WAL replay could not be applied to the database");
+                }
+            }
+
+            // writing resumes right after the last valid record; a torn tail is wiped
+            segmentNo = end / segmentBytes;
+            segment = map(segmentNo);
+            int offset = (int) (end % segmentBytes);
+            for (int i = offset; i < segment.capacity(); i++) segment.put(i, (byte) 0);
+            segment.position(offset);
+            segment.force();
+            for (long segNo : segmentNumbers()) {
+                if (segNo > segmentNo) Files.deleteIfExists(segmentPath(segNo));
+            }
+
+            writeLsn = end;
+            durableLsn = end;
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open the WAL in " + dir, e);
+        }
+
+        this.checkpointer = checkpointer;
+        checkpointer.start();
+
+        syncer = new Thread(this::syncLoop, "wal-syncer");
+        syncer.setDaemon(true);
+        syncer.start();
+
+        System.out.println("[WAL] " + dir.toAbsolutePath() + " open at position " + writeLsn);
+    }
+
+    // position right after the last valid record, scanning forward from the checkpoint
+    private long scanEnd(long from) {
+        long lsn = from;
+        while (Files.exists(segmentPath(lsn / segmentBytes))) {
+            long segEnd = (lsn / segmentBytes + 1) * segmentBytes;
+            List<WalRecord> records = read(lsn, segEnd);
+            lsn += (long) records.size() * WalRecord.SIZE;
+            if (lsn < segEnd) break;
+        }
+        return lsn;
+    }
+
+    // ---------- FILES ----------
+
+    private Path segmentPath(long segNo) {
+        return dir.resolve(String.format("wal-%08d.log", segNo));
+    }
+
+    private List<Long> segmentNumbers() {
+        List<Long> numbers = new ArrayList<>();
+        File[] files = dir.toFile().listFiles((d, name) -> name.matches("wal-\\d{8}\\.log"));
+        if (files != null) {
+            for (File f : files) numbers.add(Long.parseLong(f.getName().substring(4, 12)));
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    private MappedByteBuffer map(long segNo) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(segmentPath(segNo).toFile(), "rw")) {
+            file.setLength(segmentBytes); // new segment: zero-filled, i.e. "end of log"
+            // the mapping stays valid once the file is closed
+            return file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    /** Stop the syncer (last fsync) and run a final checkpoint. */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (!running) return;
+            running = false;
+        }
+        LockSupport.unpark(syncer);
+        try {
+            syncer.join(2000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        checkpointer.close();
+    }
+}
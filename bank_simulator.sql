@@ -170,7 +170,10 @@ ALTER TABLE `accounts`
 --
 ALTER TABLE `transactions`
   ADD PRIMARY KEY (`id`),
-  ADD KEY `from_account_ref` (`from_account_ref`);
+  ADD KEY `to_created` (`to_account_ref`,`created_at`),
+  ADD KEY `from_created` (`from_account_ref`,`created_at`),
+  ADD KEY `created_at_id` (`created_at`,`id`),
+  ADD KEY `status_id` (`status`,`id`);
 
 --
 -- Index pour la table `users`